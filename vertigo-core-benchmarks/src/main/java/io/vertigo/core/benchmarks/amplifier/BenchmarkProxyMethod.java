@@ -0,0 +1,47 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.benchmarks.amplifier;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+import io.vertigo.core.node.component.amplifier.ProxyMethod;
+
+/**
+ * Sums its int args, so that the proxy cost dominates.
+ *
+ * @author npiedeloup
+ */
+public final class BenchmarkProxyMethod implements ProxyMethod {
+
+	/** {@inheritDoc} */
+	@Override
+	public Class<? extends Annotation> getAnnotationType() {
+		return BenchmarkProxyAnnotation.class;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object invoke(final Method method, final Object[] args) {
+		int sum = 0;
+		for (final Object arg : args) {
+			sum += (Integer) arg;
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.benchmarks.analytics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.impl.analytics.process.AnalyticsAspect;
+import io.vertigo.core.node.AutoCloseableNode;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Cost of tracing a process : flat, nested and through an advised component proxy.
+ * No connector is registered, so only the tracing itself is measured.
+ *
+ * @author npiedeloup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnalyticsBenchmark {
+	private AutoCloseableNode node;
+	private AnalyticsManager analyticsManager;
+	private BenchmarkAnalyticsServices analyticsServices;
+	private int a = 1;
+	private int b = 2;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		node = new AutoCloseableNode(NodeConfig.builder()
+				.addModule(ModuleConfig.builder("aspects")
+						.addAspect(AnalyticsAspect.class)
+						.build())
+				.addModule(ModuleConfig.builder("benchmark")
+						.addComponent(BenchmarkAnalyticsServices.class)
+						.build())
+				.build());
+		analyticsManager = node.getComponentSpace().resolve(AnalyticsManager.class);
+		analyticsServices = node.getComponentSpace().resolve(BenchmarkAnalyticsServices.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		node.close();
+	}
+
+	@Benchmark
+	public int traceWithReturnFlat() {
+		return analyticsManager.traceWithReturn("benchmark", "flat", tracer -> a + b);
+	}
+
+	@Benchmark
+	public int traceWithReturnFlatWithMeasure() {
+		return analyticsManager.traceWithReturn("benchmark", "flat", tracer -> {
+			tracer.setMeasure("count", a)
+					.addTag("user", "bench");
+			return a + b;
+		});
+	}
+
+	@Benchmark
+	public int traceWithReturnNested() {
+		return analyticsManager.traceWithReturn("benchmark", "parent",
+				parent -> analyticsManager.traceWithReturn("benchmark", "child",
+						child -> analyticsManager.traceWithReturn("benchmark", "grandChild",
+								grandChild -> a + b)));
+	}
+
+	@Benchmark
+	public int aspectAdvised() {
+		return analyticsServices.add(a, b);
+	}
+
+	@Benchmark
+	public int aspectNotAdvised() {
+		return analyticsServices.addNotAdvised(a, b);
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.benchmarks.node;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.impl.param.ParamManagerImpl;
+import io.vertigo.core.node.AutoCloseableNode;
+import io.vertigo.core.node.component.ComponentSpace;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.node.definition.loader.DefinitionSpaceWritable;
+import io.vertigo.core.param.Param;
+import io.vertigo.core.param.ParamManager;
+
+/**
+ * Lookups done on each request : components, definitions and params.
+ *
+ * @author npiedeloup
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NodeBenchmark {
+	private static final int DEFINITIONS = 100;
+
+	private AutoCloseableNode node;
+	private ComponentSpace componentSpace;
+	private DefinitionSpaceWritable definitionSpace;
+	private ParamManager paramManager;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		node = new AutoCloseableNode(NodeConfig.builder().build());
+		componentSpace = node.getComponentSpace();
+		//---
+		definitionSpace = new DefinitionSpaceWritable();
+		for (int i = 0; i < DEFINITIONS; i++) {
+			definitionSpace.registerDefinition(new BenchmarkDefinition(BenchmarkDefinition.PREFIX + "Definition" + i));
+		}
+		//---
+		//the first plugin never answers, as an env plugin would for app params
+		paramManager = new ParamManagerImpl(List.of(
+				new MapParamPlugin(Map.of()),
+				new MapParamPlugin(Map.of("benchmark.param", Param.of("benchmark.param", "value")))));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		node.close();
+	}
+
+	@Benchmark
+	public AnalyticsManager componentSpaceResolve() {
+		return componentSpace.resolve("analyticsManager", AnalyticsManager.class);
+	}
+
+	@Benchmark
+	public Set<BenchmarkDefinition> definitionSpaceGetAll() {
+		return definitionSpace.getAll(BenchmarkDefinition.class);
+	}
+
+	@Benchmark
+	public Param paramManagerGetParam() {
+		return paramManager.getParam("benchmark.param");
+	}
+}
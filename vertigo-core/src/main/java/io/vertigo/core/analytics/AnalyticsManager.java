@@ -19,6 +19,8 @@ package io.vertigo.core.analytics;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -26,6 +28,7 @@ import io.vertigo.core.analytics.health.HealthCheck;
 import io.vertigo.core.analytics.health.HealthStatus;
 import io.vertigo.core.analytics.metric.Metric;
 import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.analytics.process.ProcessAnalyticsContextSnapshot;
 import io.vertigo.core.analytics.process.ProcessAnalyticsTracer;
 import io.vertigo.core.node.component.Manager;
 
@@ -55,11 +58,34 @@ public interface AnalyticsManager extends Manager {
 	 */
 	<O> O traceWithReturn(final String category, final String name, Function<ProcessAnalyticsTracer, O> function);
 
+	/**
+	 * Traces an asynchronous process : the process ends when the stage returned by the function completes.
+	 * The process is a success or a failure according to the outcome of the stage.
+	 * @param category the category of the process
+	 * @param name the name of the process
+	 * @param function the function that starts the asynchronous work
+	 * @return a stage that completes as the stage returned by the function, once the process is ended
+	 */
+	<O> CompletionStage<O> traceAsync(final String category, final String name, Function<ProcessAnalyticsTracer, CompletionStage<O>> function);
+
 	/**
 	 * @return the current tracer if it has been created before
 	 */
 	Optional<ProcessAnalyticsTracer> getCurrentTracer();
 
+	/**
+	 * Captures the context of the current thread, to trace the work forked to other threads as sub processes of the current process.
+	 * @return the captured context
+	 */
+	ProcessAnalyticsContextSnapshot captureContext();
+
+	/**
+	 * Wraps an executor so that each task runs with the context of the thread that submits it.
+	 * @param executor the executor
+	 * @return the wrapped executor
+	 */
+	Executor propagateContext(Executor executor);
+
 	/**
 	 * @return the list of health checks
 	 */
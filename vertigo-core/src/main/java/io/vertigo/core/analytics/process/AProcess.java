@@ -19,10 +19,9 @@ package io.vertigo.core.analytics.process;
 
 import java.time.Instant;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 import io.vertigo.core.lang.Assertion;
 
@@ -43,6 +42,7 @@ import io.vertigo.core.lang.Assertion;
  * 	[when]
  * - start timestamp
  * - end   timestamp
+ * - duration (measured with a monotonic clock, in nanoseconds)
  *
  * 	[data]
  * - list of measures
@@ -55,10 +55,11 @@ import io.vertigo.core.lang.Assertion;
 public final class AProcess {
 	/**
 	 * REGEX used to define rules on category, mesaures and tags.
+	 * Names are checked only once.
 	 */
-	private static final Pattern PROCESS_CATEGORY_REGEX = Pattern.compile("[a-z]+");
-	private static final Pattern MEASURE_REGEX = Pattern.compile("[a-zA-Z][a-zA-Z0-9_-]+");
-	private static final Pattern TAG_REGEX = Pattern.compile("[a-zA-Z][a-zA-Z0-9_-]+");
+	private static final ValidatedNames PROCESS_CATEGORIES = new ValidatedNames("[a-z]+", "process type");
+	private static final ValidatedNames MEASURE_NAMES = new ValidatedNames("[a-zA-Z][a-zA-Z0-9_-]+", "measure name");
+	private static final ValidatedNames TAG_NAMES = new ValidatedNames("[a-zA-Z][a-zA-Z0-9_-]+", "metadata name");
 
 	public static final String CATEGORY_SEPARATOR = "/";
 	private final String category; //ex : sql, page....
@@ -67,6 +68,8 @@ public final class AProcess {
 
 	private final long start; //when
 	private final long end; //when
+	//not serialized : the json payload is unchanged, the duration is then computed from the timestamps
+	private final transient long durationNanos;
 
 	private final Map<String, Double> measures;
 	private final Map<String, String> tags;
@@ -74,10 +77,12 @@ public final class AProcess {
 
 	/**
 	 * Constructor.
+	 * The process takes the ownership of the measures, tags and subProcesses : they must not be modified afterwards.
 	 * @param category the category
 	 * @param name  the name
 	 * @param start the start instant
 	 * @param end the end instant
+	 * @param durationNanos the duration in nanoseconds
 	 * @param measures the measures
 	 * @param tags the tags
 	 * @param subProcesses the list of sub processes (0..*)
@@ -87,6 +92,7 @@ public final class AProcess {
 			final String name,
 			final Instant start,
 			final Instant end,
+			final long durationNanos,
 			final Map<String, Double> measures,
 			final Map<String, String> tags,
 			final List<AProcess> subProcesses) {
@@ -99,19 +105,22 @@ public final class AProcess {
 				.isNotNull(tags, "the tags are required")
 				.isNotNull(subProcesses, "the subProcesses are required");
 		//---
-		checkRegex(category, PROCESS_CATEGORY_REGEX, "process type");
-		measures.keySet()
-				.forEach(measureName -> checkRegex(measureName, MEASURE_REGEX, "measure name"));
-		tags.keySet()
-				.forEach(tagName -> checkRegex(tagName, TAG_REGEX, "metadata name"));
+		PROCESS_CATEGORIES.check(category);
+		for (final String measureName : measures.keySet()) {
+			MEASURE_NAMES.check(measureName);
+		}
+		for (final String tagName : tags.keySet()) {
+			TAG_NAMES.check(tagName);
+		}
 		//---------------------------------------------------------------------
 		this.category = category;
 		this.name = name;
 		this.start = start.toEpochMilli();
 		this.end = end.toEpochMilli();
-		this.measures = Collections.unmodifiableMap(new HashMap<>(measures));
-		this.tags = Collections.unmodifiableMap(new HashMap<>(tags));
-		this.subProcesses = subProcesses;
+		this.durationNanos = durationNanos;
+		this.measures = Collections.unmodifiableMap(measures);
+		this.tags = Collections.unmodifiableMap(tags);
+		this.subProcesses = Collections.unmodifiableList(subProcesses);
 	}
 
 	/**
@@ -136,12 +145,6 @@ public final class AProcess {
 		return new AProcessBuilder(category, name, start, end);
 	}
 
-	private static void checkRegex(final String s, final Pattern pattern, final String info) {
-		if (!pattern.matcher(s).matches()) {
-			throw new IllegalArgumentException(info + " " + s + " must match regex :" + pattern.pattern());
-		}
-	}
-
 	/**
 	 * [what]
 	 * @return name
@@ -161,7 +164,15 @@ public final class AProcess {
 	 * @return the duration of the process (in milliseconds)
 	 */
 	public long getDurationMillis() {
-		return end - start;
+		return TimeUnit.NANOSECONDS.toMillis(getDurationNanos());
+	}
+
+	/**
+	 * @return the duration of the process (in nanoseconds), precise even for the fastest processes
+	 */
+	public long getDurationNanos() {
+		//a deserialized process has no measured duration
+		return durationNanos > 0 ? durationNanos : TimeUnit.MILLISECONDS.toNanos(end - start);
 	}
 
 	/**
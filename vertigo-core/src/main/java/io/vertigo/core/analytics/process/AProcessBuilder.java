@@ -17,9 +17,13 @@
  */
 package io.vertigo.core.analytics.process;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,16 +37,31 @@ import io.vertigo.core.lang.Builder;
  * @version $Id: KProcessBuilder.java,v 1.18 2012/11/08 17:06:27 pchretien Exp $
  */
 public final class AProcessBuilder implements Builder<AProcess> {
-	private final String myCategory;
-	private final Instant start;
+	private static final int INITIAL_CAPACITY = 4;
+	private static final String OTHER_SUB_PROCESSES = "*";
+
+	private String myCategory;
+	private Instant start;
+	private long startNanos; //monotonic clock, used for the duration
 	private Instant myEnd;
 
-	private final String myName;
+	private String myName;
+
+	//measures and tags are stored in parallel arrays : a process has only a few of them and values are not boxed
+	private String[] measureNames = new String[INITIAL_CAPACITY];
+	private double[] measureValues = new double[INITIAL_CAPACITY];
+	private int measureCount;
 
-	private final Map<String, Double> measures = new HashMap<>();
-	private final Map<String, String> tags = new HashMap<>();
+	private String[] tagNames = new String[INITIAL_CAPACITY];
+	private String[] tagValues = new String[INITIAL_CAPACITY];
+	private int tagCount;
 
-	private final List<AProcess> subProcesses = new ArrayList<>();
+	//created lazily and handed over to the built process (then copied on write if the builder is used again)
+	private List<AProcess> subProcesses;
+	private boolean subProcessesShared;
+	private int maxSubProcesses = Integer.MAX_VALUE;
+	//sub processes beyond the limit, folded by (category, name) ; created lazily
+	private Map<String, SubProcessRollup> rollups;
 
 	/**
 	 * Constructor.
@@ -59,6 +78,7 @@ public final class AProcessBuilder implements Builder<AProcess> {
 		myName = name;
 
 		start = Instant.now();
+		startNanos = System.nanoTime();
 	}
 
 	/**
@@ -83,6 +103,51 @@ public final class AProcessBuilder implements Builder<AProcess> {
 		myEnd = end;
 	}
 
+	/**
+	 * Resets this builder so that it can be reused for a new process.
+	 * The start of the new process is the current instant.
+	 * This method is intended for pooled builders which are confined to a single thread.
+	 * @param category category of the processus
+	 * @param name name of the process, used for agregation
+	 * @return this builder
+	 */
+	public AProcessBuilder reset(final String category, final String name) {
+		Assertion.check()
+				.isNotBlank(category, "the process category is required")
+				.isNotBlank(name, "the process name is required");
+		//---
+		myCategory = category;
+		myName = name;
+		start = Instant.now();
+		startNanos = System.nanoTime();
+		myEnd = null;
+		//we release the references to allow the gc to do its job
+		Arrays.fill(measureNames, 0, measureCount, null);
+		measureCount = 0;
+		Arrays.fill(tagNames, 0, tagCount, null);
+		Arrays.fill(tagValues, 0, tagCount, null);
+		tagCount = 0;
+		subProcesses = null;
+		subProcessesShared = false;
+		rollups = null;
+		return this;
+	}
+
+	/**
+	 * Limits the number of sub processes kept by the process.
+	 * Beyond this limit, the sub processes with the same category and name are folded into a single rollup sub process
+	 * (with their count, failures, mean/total/min/max duration and summed measures), so the memory stays constant for long running processes.
+	 * The limit is kept when the builder is reset.
+	 * @param max the max number of sub processes
+	 * @return this builder
+	 */
+	public AProcessBuilder withMaxSubProcesses(final int max) {
+		Assertion.check().isTrue(max > 0, "the max number of sub processes {0} must be > 0", max);
+		//---
+		maxSubProcesses = max;
+		return this;
+	}
+
 	/**
 	 * Increments a measure.
 	 * if the measure is new,  it's automatically created with the value.
@@ -93,8 +158,12 @@ public final class AProcessBuilder implements Builder<AProcess> {
 	public AProcessBuilder incMeasure(final String name, final double value) {
 		Assertion.check().isNotNull(name, "Measure name is required");
 		//---------------------------------------------------------------------
-		final Double lastmValue = measures.get(name);
-		measures.put(name, lastmValue == null ? value : value + lastmValue);
+		final int index = indexOf(measureNames, measureCount, name);
+		if (index < 0) {
+			addMeasure(name, value);
+		} else {
+			measureValues[index] += value;
+		}
 		return this;
 	}
 
@@ -107,7 +176,12 @@ public final class AProcessBuilder implements Builder<AProcess> {
 	public AProcessBuilder setMeasure(final String name, final double value) {
 		Assertion.check().isNotNull(name, "measure name is required");
 		//---------------------------------------------------------------------
-		measures.put(name, value);
+		final int index = indexOf(measureNames, measureCount, name);
+		if (index < 0) {
+			addMeasure(name, value);
+		} else {
+			measureValues[index] = value;
+		}
 		return this;
 	}
 
@@ -122,7 +196,18 @@ public final class AProcessBuilder implements Builder<AProcess> {
 				.isNotNull(name, "tag name is required")
 				.isNotNull(value, "tag value is required");
 		//---------------------------------------------------------------------
-		tags.put(name, value);
+		final int index = indexOf(tagNames, tagCount, name);
+		if (index < 0) {
+			if (tagCount == tagNames.length) {
+				tagNames = Arrays.copyOf(tagNames, tagCount * 2);
+				tagValues = Arrays.copyOf(tagValues, tagCount * 2);
+			}
+			tagNames[tagCount] = name;
+			tagValues[tagCount] = value;
+			tagCount++;
+		} else {
+			tagValues[index] = value;
+		}
 		return this;
 	}
 
@@ -134,21 +219,118 @@ public final class AProcessBuilder implements Builder<AProcess> {
 	public AProcessBuilder addSubProcess(final AProcess subProcess) {
 		Assertion.check().isNotNull(subProcess, "sub process is required ");
 		//---------------------------------------------------------------------
+		if (subProcesses != null && subProcesses.size() >= maxSubProcesses) {
+			rollup(subProcess);
+			return this;
+		}
+		if (subProcesses == null) {
+			subProcesses = new ArrayList<>();
+		} else if (subProcessesShared) {
+			//the list belongs to an already built process
+			subProcesses = new ArrayList<>(subProcesses);
+			subProcessesShared = false;
+		}
 		subProcesses.add(subProcess);
 		return this;
 	}
 
+	private void rollup(final AProcess subProcess) {
+		if (rollups == null) {
+			rollups = new LinkedHashMap<>();
+		}
+		String name = subProcess.getName();
+		String key = subProcess.getCategory() + AProcess.CATEGORY_SEPARATOR + name;
+		if (rollups.size() >= maxSubProcesses && !rollups.containsKey(key)) {
+			//too many different names : they are all folded together
+			name = OTHER_SUB_PROCESSES;
+			key = subProcess.getCategory() + AProcess.CATEGORY_SEPARATOR + name;
+		}
+		SubProcessRollup rollup = rollups.get(key);
+		if (rollup == null) {
+			rollup = new SubProcessRollup(subProcess.getCategory(), name);
+			rollups.put(key, rollup);
+		}
+		rollup.add(subProcess);
+	}
+
+	private void addMeasure(final String name, final double value) {
+		if (measureCount == measureNames.length) {
+			measureNames = Arrays.copyOf(measureNames, measureCount * 2);
+			measureValues = Arrays.copyOf(measureValues, measureCount * 2);
+		}
+		measureNames[measureCount] = name;
+		measureValues[measureCount] = value;
+		measureCount++;
+	}
+
+	private static int indexOf(final String[] names, final int count, final String name) {
+		for (int i = 0; i < count; i++) {
+			//names are often constants so we check the reference first
+			if (names[i] == name || names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public AProcess build() {
-		final Instant end = myEnd != null ? myEnd : Instant.now();
+		final Instant end;
+		final long durationNanos;
+		if (myEnd == null) {
+			//the duration is not affected by the adjustments of the wall clock
+			durationNanos = System.nanoTime() - startNanos;
+			end = start.plusNanos(durationNanos);
+		} else {
+			durationNanos = Duration.between(start, myEnd).toNanos();
+			end = myEnd;
+		}
+		final Map<String, Double> measures;
+		if (measureCount == 0) {
+			measures = Collections.emptyMap();
+		} else {
+			measures = new HashMap<>(capacityOf(measureCount));
+			for (int i = 0; i < measureCount; i++) {
+				measures.put(measureNames[i], measureValues[i]);
+			}
+		}
+		final Map<String, String> tags;
+		if (tagCount == 0) {
+			tags = Collections.emptyMap();
+		} else {
+			tags = new HashMap<>(capacityOf(tagCount));
+			for (int i = 0; i < tagCount; i++) {
+				tags.put(tagNames[i], tagValues[i]);
+			}
+		}
+		//the collections are handed over to the process without any copy
+		final List<AProcess> builtSubProcesses;
+		if (subProcesses == null) {
+			builtSubProcesses = Collections.emptyList();
+		} else if (rollups != null) {
+			builtSubProcesses = new ArrayList<>(subProcesses.size() + rollups.size());
+			builtSubProcesses.addAll(subProcesses);
+			for (final SubProcessRollup rollup : rollups.values()) {
+				builtSubProcesses.add(rollup.toProcess());
+			}
+		} else {
+			builtSubProcesses = subProcesses;
+			subProcessesShared = true;
+		}
 		return new AProcess(
 				myCategory,
 				myName,
 				start,
 				end,
+				durationNanos,
 				measures,
 				tags,
-				subProcesses);
+				builtSubProcesses);
+	}
+
+	private static int capacityOf(final int size) {
+		//no rehash with the default load factor
+		return (int) (size / 0.75f) + 1;
 	}
 }
@@ -0,0 +1,44 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.util.concurrent.Callable;
+
+/**
+ * The tracer context of a thread, captured to be re-attached in another thread.
+ * The processes traced by the wrapped tasks are attached as sub processes of the process that was current when the context was captured.
+ * If this process is already closed when a sub process ends, the sub process is sent as a root process.
+ *
+ * @author pchretien, npiedeloup
+ */
+public interface ProcessAnalyticsContextSnapshot {
+
+	/**
+	 * Wraps a task so that it runs with this context.
+	 * @param runnable the task
+	 * @return the wrapped task
+	 */
+	Runnable wrap(Runnable runnable);
+
+	/**
+	 * Wraps a task so that it runs with this context.
+	 * @param callable the task
+	 * @return the wrapped task
+	 */
+	<V> Callable<V> wrap(Callable<V> callable);
+}
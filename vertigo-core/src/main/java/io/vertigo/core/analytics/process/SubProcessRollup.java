@@ -0,0 +1,90 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds the sub processes of a same (category, name) into a single rollup sub process.
+ * Used when a process has more sub processes than its limit : memory stays constant whatever the number of sub processes.
+ *
+ * The rollup process stands for several processes, so that it's not seen as a single huge process :
+ *  - it lasts the mean duration of the folded processes,
+ *  - it sums their measures except success, which is 0 if at least one of them failed (100 otherwise),
+ *  - it adds the measures rollupCount, rollupFailures, rollupTotalDurationMillis, rollupMinDurationMillis and rollupMaxDurationMillis.
+ * The sub processes of the folded processes are not kept.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class SubProcessRollup {
+	private static final String SUCCESS_MEASURE = "success";
+
+	private final String category;
+	private final String name;
+	private long count;
+	private long failures;
+	private long startMillis = Long.MAX_VALUE;
+	private long totalNanos;
+	private long minNanos = Long.MAX_VALUE;
+	private long maxNanos;
+	private final Map<String, Double> measureSums = new HashMap<>();
+
+	SubProcessRollup(final String category, final String name) {
+		this.category = category;
+		this.name = name;
+	}
+
+	void add(final AProcess process) {
+		count++;
+		startMillis = Math.min(startMillis, process.getStart());
+		final long durationNanos = process.getDurationNanos();
+		totalNanos += durationNanos;
+		minNanos = Math.min(minNanos, durationNanos);
+		maxNanos = Math.max(maxNanos, durationNanos);
+		for (final Map.Entry<String, Double> measure : process.getMeasures().entrySet()) {
+			if (SUCCESS_MEASURE.equals(measure.getKey())) {
+				if (measure.getValue() == 0) {
+					failures++;
+				}
+			} else {
+				measureSums.merge(measure.getKey(), measure.getValue(), Double::sum);
+			}
+		}
+	}
+
+	AProcess toProcess() {
+		final Instant start = Instant.ofEpochMilli(startMillis);
+		final AProcessBuilder processBuilder = AProcess.builder(category, name, start, start.plusNanos(totalNanos / count));
+		measureSums.forEach(processBuilder::setMeasure);
+		return processBuilder
+				.setMeasure(SUCCESS_MEASURE, failures == 0 ? 100 : 0)
+				.setMeasure("rollupCount", count)
+				.setMeasure("rollupFailures", failures)
+				.setMeasure("rollupTotalDurationMillis", toMillis(totalNanos))
+				.setMeasure("rollupMinDurationMillis", toMillis(minNanos))
+				.setMeasure("rollupMaxDurationMillis", toMillis(maxNanos))
+				.build();
+	}
+
+	private static double toMillis(final long nanos) {
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
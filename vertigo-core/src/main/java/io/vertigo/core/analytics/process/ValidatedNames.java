@@ -0,0 +1,69 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Registry of the names (categories, measures, tags) that have already been checked against a regex.
+ * Processes use a few names many times, so each name is checked once and then remembered.
+ * The registry is bounded : beyond its max size, the new names are checked each time.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class ValidatedNames {
+	private static final int MAX_SIZE = 10_000;
+
+	private final Pattern pattern;
+	private final String info;
+	private final Set<String> names = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constructor.
+	 * @param regex the regex the names must match
+	 * @param info what is checked, used in the error message
+	 */
+	ValidatedNames(final String regex, final String info) {
+		Assertion.check()
+				.isNotBlank(regex)
+				.isNotBlank(info);
+		//---
+		pattern = Pattern.compile(regex);
+		this.info = info;
+	}
+
+	/**
+	 * Checks that a name matches the regex.
+	 * @param name the name
+	 */
+	void check(final String name) {
+		if (names.contains(name)) {
+			return;
+		}
+		if (!pattern.matcher(name).matches()) {
+			throw new IllegalArgumentException(info + " " + name + " must match regex :" + pattern.pattern());
+		}
+		if (names.size() < MAX_SIZE) {
+			names.add(name);
+		}
+	}
+}
@@ -20,6 +20,9 @@ package io.vertigo.core.daemon;
 /**
  * This interface is a marker to identify the daemons (from the simple other runnables)
  *
+ * The daemons run on pooled worker threads : a value stored in a plain ThreadLocal persists from one run to the next (of any daemon).
+ * A state bound to a run must be stored in a {@link io.vertigo.core.lang.ResettableThreadLocal}, which is reset after each run.
+ *
  * @author mlaroche, pchretien, npiedeloup
  */
 public interface Daemon extends Runnable {
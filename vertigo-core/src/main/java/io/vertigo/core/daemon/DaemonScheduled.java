@@ -24,6 +24,8 @@ import java.lang.annotation.Target;
 
 /**
  * Annotation for scheduling daemons.
+ * The annotated method runs on pooled worker threads : its per-run state must be stored in a {@link io.vertigo.core.lang.ResettableThreadLocal}
+ * rather than in a plain ThreadLocal, which is not reset between two runs.
  * @author mlaroche
  *
  */
@@ -38,10 +40,51 @@ public @interface DaemonScheduled {
 	String name();
 
 	/**
-	 * The daemon execution period in seconds
+	 * The daemon execution period in seconds.
+	 * Either a period or a cron is required.
 	 * @return daemon execution period
 	 */
-	int periodInSeconds();
+	int periodInSeconds() default 0;
+
+	/**
+	 * If the period starts when the previous execution starts (fixed rate) rather than when it ends (fixed delay).
+	 * An execution is skipped if the previous one is still running.
+	 * @return if the daemon is executed at a fixed rate
+	 */
+	boolean fixedRate() default false;
+
+	/**
+	 * The cron expression of the daemon executions : [seconds] minutes hours day-of-month month day-of-week.
+	 * Either a period or a cron is required.
+	 * @return the cron expression
+	 */
+	String cron() default "";
+
+	/**
+	 * The delay before the first execution in seconds (the period by default, none with a cron).
+	 * @return the initial delay
+	 */
+	int initialDelayInSeconds() default -1;
+
+	/**
+	 * The max random delay in seconds added to each execution, to spread the load of nodes started at the same time.
+	 * @return the max jitter
+	 */
+	int jitterInSeconds() default 0;
+
+	/**
+	 * The duration in seconds after which an execution is interrupted (0 for no timeout).
+	 * The daemon must react to the interruption to be actually stopped.
+	 * @return the execution timeout
+	 */
+	int timeoutInSeconds() default 0;
+
+	/**
+	 * If each execution is done by only one node of the cluster (a DaemonLockPlugin is required).
+	 * The other nodes skip the execution.
+	 * @return if the daemon is a cluster singleton
+	 */
+	boolean clusterSingleton() default false;
 
 	/**
 	 * If the deaemon from this method is monitored by an analytics tracer.
@@ -40,7 +40,7 @@ public interface DaemonStat {
 	String getDaemonName();
 
 	/**
-	 * @return the demon period
+	 * @return the demon period (0 for a cron schedule)
 	 */
 	int getDaemonPeriodInSecond();
 
@@ -68,4 +68,34 @@ public interface DaemonStat {
 	 * @return if last exec was a success
 	 */
 	boolean isLastExecSuccess();
+
+	/**
+	 * @return the duration of the last execution in milliseconds
+	 */
+	long getLastDurationMillis();
+
+	/**
+	 * @return the average duration of the executions in milliseconds
+	 */
+	double getAvgDurationMillis();
+
+	/**
+	 * @return the max duration of the executions in milliseconds
+	 */
+	long getMaxDurationMillis();
+
+	/**
+	 * @return the number of executions skipped because the previous one was still running
+	 */
+	long getMissed();
+
+	/**
+	 * @return the number of executions interrupted because they exceeded the timeout
+	 */
+	long getTimeouts();
+
+	/**
+	 * @return the number of failures of the cluster lock (cluster-singleton daemons only), these executions are not run
+	 */
+	long getLockFailures();
 }
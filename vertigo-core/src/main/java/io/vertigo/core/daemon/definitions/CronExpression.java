@@ -0,0 +1,165 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon.definitions;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * A cron expression : [seconds] minutes hours day-of-month month day-of-week.
+ * Each field accepts * (or ?), values, ranges (a-b), lists (a,b) and steps (* /n, a-b/n, a/n).
+ * Months and days of week accept their english three letters names (JAN, MON...), sunday is 0 or 7.
+ * As with unix cron, when both the day of month and the day of week are restricted, a day matching one of them is selected.
+ *
+ * @author npiedeloup
+ */
+final class CronExpression {
+	private static final List<String> MONTHS = Arrays.asList("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+	private static final List<String> DAYS_OF_WEEK = Arrays.asList("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+	private static final int MAX_YEARS = 5;
+
+	private final String expression;
+	private final long seconds;
+	private final long minutes;
+	private final long hours;
+	private final long daysOfMonth;
+	private final long months;
+	private final long daysOfWeek;
+	private final boolean daysRestricted;
+
+	private CronExpression(final String expression) {
+		this.expression = expression;
+		final String[] fields = expression.trim().split("\\s+");
+		Assertion.check()
+				.isTrue(fields.length == 5 || fields.length == 6, "cron expression '{0}' must have 5 or 6 fields", expression);
+		//---
+		final int offset = fields.length - 5;
+		seconds = offset == 1 ? parseField(fields[0], 0, 59, null) : 1L;
+		minutes = parseField(fields[offset], 0, 59, null);
+		hours = parseField(fields[offset + 1], 0, 23, null);
+		daysOfMonth = parseField(fields[offset + 2], 1, 31, null);
+		months = parseField(fields[offset + 3], 1, 12, MONTHS);
+		final long daysOfWeekWith7 = parseField(fields[offset + 4], 0, 7, DAYS_OF_WEEK);
+		//sunday is 0 or 7
+		daysOfWeek = (daysOfWeekWith7 & ~(1L << 7)) | (daysOfWeekWith7 >>> 7);
+		daysRestricted = !isAll(fields[offset + 2]) && !isAll(fields[offset + 4]);
+		Assertion.check()
+				.isTrue(next(ZonedDateTime.now()) != null, "cron expression '{0}' never matches", expression);
+	}
+
+	/**
+	 * @param expression the cron expression
+	 * @return the parsed expression
+	 */
+	static CronExpression parse(final String expression) {
+		Assertion.check().isNotBlank(expression);
+		//---
+		return new CronExpression(expression);
+	}
+
+	private static boolean isAll(final String field) {
+		return "*".equals(field) || "?".equals(field);
+	}
+
+	private static long parseField(final String field, final int min, final int max, final List<String> names) {
+		long bits = 0;
+		for (final String part : field.split(",")) {
+			final int slash = part.indexOf('/');
+			final String range = slash < 0 ? part : part.substring(0, slash);
+			final int step = slash < 0 ? 1 : parseValue(part.substring(slash + 1), 0, null);
+			final int start;
+			final int end;
+			if (isAll(range)) {
+				start = min;
+				end = max;
+			} else if (range.indexOf('-') > 0) {
+				start = parseValue(range.substring(0, range.indexOf('-')), min, names);
+				end = parseValue(range.substring(range.indexOf('-') + 1), min, names);
+			} else {
+				start = parseValue(range, min, names);
+				//a/n means from a to the max
+				end = slash < 0 ? start : max;
+			}
+			Assertion.check()
+					.isTrue(step > 0, "the step of '{0}' must be > 0", part)
+					.isTrue(min <= start && start <= end && end <= max, "'{0}' must be a range between {1} and {2}", part, min, max);
+			for (int i = start; i <= end; i += step) {
+				bits |= 1L << i;
+			}
+		}
+		return bits;
+	}
+
+	private static int parseValue(final String value, final int min, final List<String> names) {
+		if (names != null) {
+			final int index = names.indexOf(value.toUpperCase());
+			if (index >= 0) {
+				return index + min;
+			}
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (final NumberFormatException e) {
+			throw new IllegalArgumentException("'" + value + "' is not a valid value of a cron expression", e);
+		}
+	}
+
+	private static boolean has(final long bits, final int value) {
+		return (bits & 1L << value) != 0;
+	}
+
+	private boolean matchesDay(final ZonedDateTime time) {
+		final boolean dayOfMonth = has(daysOfMonth, time.getDayOfMonth());
+		final boolean dayOfWeek = has(daysOfWeek, time.getDayOfWeek().getValue() % 7);
+		return daysRestricted ? dayOfMonth || dayOfWeek : dayOfMonth && dayOfWeek;
+	}
+
+	/**
+	 * @param after the time after which the next execution is searched
+	 * @return the next execution time strictly after the time, null if there is none in the next years
+	 */
+	ZonedDateTime next(final ZonedDateTime after) {
+		final ZonedDateTime limit = after.plusYears(MAX_YEARS);
+		ZonedDateTime time = after.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+		while (time.isBefore(limit)) {
+			if (!has(months, time.getMonthValue())) {
+				time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+			} else if (!matchesDay(time)) {
+				time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+			} else if (!has(hours, time.getHour())) {
+				time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+			} else if (!has(minutes, time.getMinute())) {
+				time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+			} else if (!has(seconds, time.getSecond())) {
+				time = time.plusSeconds(1);
+			} else {
+				return time;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+}
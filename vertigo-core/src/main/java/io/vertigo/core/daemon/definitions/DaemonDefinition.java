@@ -33,8 +33,10 @@ import io.vertigo.core.node.definition.DefinitionPrefix;
 public final class DaemonDefinition extends AbstractDefinition {
 	public static final String PREFIX = "Dmn";
 
-	private final int periodInSeconds;
+	private final DaemonSchedule schedule;
 	private final Supplier<Daemon> daemonSupplier;
+	private final int timeoutInSeconds;
+	private final boolean clusterSingleton;
 
 	/**
 	 * Constructor.
@@ -44,23 +46,88 @@ public final class DaemonDefinition extends AbstractDefinition {
 	 * @param periodInSeconds daemon execution period.
 	 */
 	public DaemonDefinition(final String name, final Supplier<Daemon> daemonSupplier, final int periodInSeconds) {
+		this(name, daemonSupplier, DaemonSchedule.ofFixedDelay(periodInSeconds));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the daemon Name
+	 * @param daemonSupplier the daemon supplier.
+	 * @param schedule daemon execution schedule.
+	 */
+	public DaemonDefinition(final String name, final Supplier<Daemon> daemonSupplier, final DaemonSchedule schedule) {
+		this(name, daemonSupplier, schedule, 0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the daemon Name
+	 * @param daemonSupplier the daemon supplier.
+	 * @param schedule daemon execution schedule.
+	 * @param timeoutInSeconds duration after which an execution is interrupted (0 for no timeout).
+	 */
+	public DaemonDefinition(final String name, final Supplier<Daemon> daemonSupplier, final DaemonSchedule schedule, final int timeoutInSeconds) {
+		this(name, daemonSupplier, schedule, timeoutInSeconds, false);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the daemon Name
+	 * @param daemonSupplier the daemon supplier.
+	 * @param schedule daemon execution schedule.
+	 * @param timeoutInSeconds duration after which an execution is interrupted (0 for no timeout).
+	 * @param clusterSingleton if each execution is done by only one node of the cluster.
+	 */
+	public DaemonDefinition(
+			final String name,
+			final Supplier<Daemon> daemonSupplier,
+			final DaemonSchedule schedule,
+			final int timeoutInSeconds,
+			final boolean clusterSingleton) {
 		super(name);
 		//---
 		Assertion.check()
 				.isNotNull(daemonSupplier)
-				.isTrue(periodInSeconds > 0, "period {0} must be > 0", periodInSeconds);
+				.isNotNull(schedule)
+				.isTrue(timeoutInSeconds >= 0, "timeout {0} must be >= 0", timeoutInSeconds);
 		// -----
 		this.daemonSupplier = daemonSupplier;
-		this.periodInSeconds = periodInSeconds;
+		this.schedule = schedule;
+		this.timeoutInSeconds = timeoutInSeconds;
+		this.clusterSingleton = clusterSingleton;
 	}
 
 	/**
 	 * Give the value of periodInSeconds.
 	 *
-	 * @return PeriodInSeconds.
+	 * @return PeriodInSeconds, 0 for a cron schedule.
 	 */
 	public int getPeriodInSeconds() {
-		return periodInSeconds;
+		return schedule.getPeriodInSeconds();
+	}
+
+	/**
+	 * @return the execution schedule
+	 */
+	public DaemonSchedule getSchedule() {
+		return schedule;
+	}
+
+	/**
+	 * @return the duration after which an execution is interrupted, 0 for no timeout
+	 */
+	public int getTimeoutInSeconds() {
+		return timeoutInSeconds;
+	}
+
+	/**
+	 * @return if each execution is done by only one node of the cluster
+	 */
+	public boolean isClusterSingleton() {
+		return clusterSingleton;
 	}
 
 	public Supplier<Daemon> getDaemonSupplier() {
@@ -0,0 +1,169 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon.definitions;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * When a daemon is executed.
+ * - fixedDelay : the daemon is executed periodically, the period starts when the previous execution ends.
+ * - fixedRate : the daemon is executed periodically, the period starts when the previous execution starts.
+ *   An execution is skipped if the previous one is still running.
+ * - cron : the daemon is executed at the times described by a cron expression.
+ *   An execution is skipped if the previous one is still running.
+ *
+ * The first execution occurs after an initial delay (the period by default, none with a cron).
+ * A random jitter between 0 and jitterInSeconds is added to each execution, so that daemons started at the same time on several nodes are spread.
+ *
+ * @author npiedeloup
+ */
+public final class DaemonSchedule {
+	/**
+	 * The kind of schedule.
+	 */
+	public enum Mode {
+		fixedDelay,
+		fixedRate,
+		cron
+	}
+
+	private final Mode mode;
+	private final int periodInSeconds;
+	private final CronExpression cronExpression;
+	private final int initialDelayInSeconds;
+	private final int jitterInSeconds;
+
+	private DaemonSchedule(
+			final Mode mode,
+			final int periodInSeconds,
+			final CronExpression cronExpression,
+			final int initialDelayInSeconds,
+			final int jitterInSeconds) {
+		Assertion.check()
+				.isNotNull(mode)
+				.isTrue(mode == Mode.cron ? cronExpression != null : periodInSeconds > 0, "period {0} must be > 0", periodInSeconds)
+				.isTrue(initialDelayInSeconds >= 0, "initial delay {0} must be >= 0", initialDelayInSeconds)
+				.isTrue(jitterInSeconds >= 0, "jitter {0} must be >= 0", jitterInSeconds);
+		//---
+		this.mode = mode;
+		this.periodInSeconds = periodInSeconds;
+		this.cronExpression = cronExpression;
+		this.initialDelayInSeconds = initialDelayInSeconds;
+		this.jitterInSeconds = jitterInSeconds;
+	}
+
+	/**
+	 * @param periodInSeconds the period between the end of an execution and the start of the next one
+	 * @return the schedule
+	 */
+	public static DaemonSchedule ofFixedDelay(final int periodInSeconds) {
+		return new DaemonSchedule(Mode.fixedDelay, periodInSeconds, null, periodInSeconds, 0);
+	}
+
+	/**
+	 * @param periodInSeconds the period between the starts of two executions
+	 * @return the schedule
+	 */
+	public static DaemonSchedule ofFixedRate(final int periodInSeconds) {
+		return new DaemonSchedule(Mode.fixedRate, periodInSeconds, null, periodInSeconds, 0);
+	}
+
+	/**
+	 * @param cron the cron expression : [seconds] minutes hours day-of-month month day-of-week
+	 * @return the schedule
+	 */
+	public static DaemonSchedule ofCron(final String cron) {
+		return new DaemonSchedule(Mode.cron, 0, CronExpression.parse(cron), 0, 0);
+	}
+
+	/**
+	 * @param delayInSeconds the delay before the first execution
+	 * @return a copy of this schedule with the initial delay
+	 */
+	public DaemonSchedule withInitialDelay(final int delayInSeconds) {
+		return new DaemonSchedule(mode, periodInSeconds, cronExpression, delayInSeconds, jitterInSeconds);
+	}
+
+	/**
+	 * @param maxJitterInSeconds the max random delay added to each execution
+	 * @return a copy of this schedule with the jitter
+	 */
+	public DaemonSchedule withJitter(final int maxJitterInSeconds) {
+		return new DaemonSchedule(mode, periodInSeconds, cronExpression, initialDelayInSeconds, maxJitterInSeconds);
+	}
+
+	/**
+	 * @return the kind of schedule
+	 */
+	public Mode getMode() {
+		return mode;
+	}
+
+	/**
+	 * @return the period in seconds, 0 with a cron
+	 */
+	public int getPeriodInSeconds() {
+		return periodInSeconds;
+	}
+
+	/**
+	 * @return the cron expression, if any
+	 */
+	public Optional<String> getCron() {
+		return Optional.ofNullable(cronExpression).map(CronExpression::toString);
+	}
+
+	/**
+	 * @return the delay before the first execution
+	 */
+	public int getInitialDelayInSeconds() {
+		return initialDelayInSeconds;
+	}
+
+	/**
+	 * @return the max random delay added to each execution
+	 */
+	public int getJitterInSeconds() {
+		return jitterInSeconds;
+	}
+
+	/**
+	 * Only with a cron.
+	 * @param after the instant after which the next execution is searched
+	 * @return the next execution instant strictly after the instant
+	 */
+	public Instant nextCronExecution(final Instant after) {
+		Assertion.check()
+				.isTrue(mode == Mode.cron, "only a cron schedule has execution times")
+				.isNotNull(after);
+		//---
+		final ZonedDateTime next = cronExpression.next(after.atZone(ZoneId.systemDefault()));
+		Assertion.check().isNotNull(next, "cron expression '{0}' has no more executions", cronExpression);
+		return next.toInstant();
+	}
+
+	@Override
+	public String toString() {
+		return mode == Mode.cron ? "cron " + cronExpression : mode + " " + periodInSeconds + "s";
+	}
+}
@@ -17,6 +17,8 @@
  */
 package io.vertigo.core.impl.analytics;
 
+import java.util.List;
+
 import io.vertigo.core.analytics.health.HealthCheck;
 import io.vertigo.core.analytics.metric.Metric;
 import io.vertigo.core.analytics.process.AProcess;
@@ -36,6 +38,17 @@ public interface AnalyticsConnectorPlugin extends Plugin {
 	 */
 	void add(AProcess process);
 
+	/**
+	 * Adds a batch of processes to a connector which acts as a consumer.
+	 * By default each process is added one by one, a connector may override this method to consume the batch at once.
+	 * @param processes the processes
+	 */
+	default void add(final List<AProcess> processes) {
+		for (final AProcess process : processes) {
+			add(process);
+		}
+	}
+
 	/**
 	 * Adds a metric to a connector which acts as a consumer.
 	 * @param metric the metric
@@ -0,0 +1,32 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics;
+
+/**
+ * What to do when a process is dispatched to a connector whose queue is full.
+ *
+ * @author pchretien, npiedeloup
+ */
+enum AnalyticsDispatchOverflowPolicy {
+	/** The oldest process of the queue is dropped to make room for the new one. */
+	dropOldest,
+	/** The new process is dropped. */
+	dropNewest,
+	/** The caller waits until there is room in the queue. */
+	block
+}
@@ -0,0 +1,227 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.node.component.Activeable;
+
+/**
+ * Dispatches the processes to a connector outside of the threads that trace them.
+ * The processes are stored in a bounded lock-free ring buffer which may be fed by many threads
+ * and is drained by a single dedicated thread that delivers them to the connector by batches.
+ * The drain thread parks for a short time when the buffer is empty, so the producers never have to wake it up.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class AnalyticsDispatcher implements Activeable {
+	private static final Logger LOG = LogManager.getLogger(AnalyticsDispatcher.class);
+	private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+	private final AnalyticsConnectorPlugin connectorPlugin;
+	private final String name;
+	private final AnalyticsRingBuffer<AProcess> queue;
+	private final int maxBatchSize;
+	private final AnalyticsDispatchOverflowPolicy overflowPolicy;
+
+	private final LongAdder dispatched = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	private volatile boolean running;
+	private Thread drainThread;
+
+	/**
+	 * Constructor.
+	 * @param connectorPlugin the connector that consumes the processes
+	 * @param name the name of the dispatcher
+	 * @param queueSize the max number of processes waiting for the connector
+	 * @param maxBatchSize the max number of processes delivered at once
+	 * @param overflowPolicy what to do when the queue is full
+	 */
+	AnalyticsDispatcher(
+			final AnalyticsConnectorPlugin connectorPlugin,
+			final String name,
+			final int queueSize,
+			final int maxBatchSize,
+			final AnalyticsDispatchOverflowPolicy overflowPolicy) {
+		Assertion.check()
+				.isNotNull(connectorPlugin)
+				.isNotBlank(name)
+				.isTrue(queueSize > 0, "the queue size {0} must be > 0", queueSize)
+				.isTrue(maxBatchSize > 0, "the batch size {0} must be > 0", maxBatchSize)
+				.isNotNull(overflowPolicy);
+		//---
+		this.connectorPlugin = connectorPlugin;
+		this.name = name;
+		queue = new AnalyticsRingBuffer<>(queueSize);
+		this.maxBatchSize = maxBatchSize;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void start() {
+		running = true;
+		drainThread = new Thread(this::drain, "vertigo-analytics-" + name);
+		drainThread.setDaemon(true);
+		drainThread.start();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void stop() {
+		running = false;
+		LockSupport.unpark(drainThread);
+		try {
+			//the drain thread flushes the queue before ending
+			drainThread.join(STOP_TIMEOUT_MILLIS);
+		} catch (final InterruptedException e) {
+			// Restore interrupted state...
+			Thread.currentThread().interrupt();
+		}
+		drainThread = null;
+		//the processes added while the drain thread was ending (or if it has not ended in time) are flushed here
+		flush();
+	}
+
+	/**
+	 * Adds a process to the queue.
+	 * If the dispatcher is stopped meanwhile, the process is delivered by the calling thread so that nothing is lost.
+	 * @param process the process
+	 */
+	void dispatch(final AProcess process) {
+		if (!running) {
+			//the dispatcher is not started (or is stopped) so the process is delivered directly
+			connectorPlugin.add(process);
+			return;
+		}
+		switch (overflowPolicy) {
+			case dropOldest:
+				while (!queue.offer(process)) {
+					if (queue.poll() != null) {
+						dropped.increment();
+					}
+				}
+				break;
+			case dropNewest:
+				if (!queue.offer(process)) {
+					dropped.increment();
+				}
+				break;
+			case block:
+				while (!queue.offer(process)) {
+					if (!running) {
+						//nobody will drain the queue anymore
+						connectorPlugin.add(process);
+						return;
+					}
+					if (Thread.currentThread().isInterrupted()) {
+						//the interrupted state is kept for the caller
+						dropped.increment();
+						return;
+					}
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+				break;
+			default:
+				throw new IllegalStateException("unsupported overflow policy " + overflowPolicy);
+		}
+		if (!running) {
+			//the dispatcher has been stopped while the process was added : the final flush may have been missed
+			flush();
+		}
+	}
+
+	private void drain() {
+		final List<AProcess> batch = new ArrayList<>(maxBatchSize);
+		while (running && !Thread.currentThread().isInterrupted()) {
+			if (queue.drainTo(batch, maxBatchSize) > 0) {
+				deliver(batch);
+			} else {
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+		//flush : nothing must be lost when the node stops
+		flush();
+	}
+
+	private void flush() {
+		final List<AProcess> batch = new ArrayList<>(maxBatchSize);
+		while (queue.drainTo(batch, maxBatchSize) > 0) {
+			deliver(batch);
+		}
+	}
+
+	private void deliver(final List<AProcess> batch) {
+		try {
+			connectorPlugin.add(batch);
+			dispatched.add(batch.size());
+		} catch (final Exception e) {
+			failed.add(batch.size());
+			LOG.error("Unable to deliver " + batch.size() + " processes to the connector " + name, e);
+		} finally {
+			batch.clear();
+		}
+	}
+
+	/**
+	 * @return the name of the dispatcher
+	 */
+	String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of processes delivered to the connector
+	 */
+	long getDispatchedCount() {
+		return dispatched.sum();
+	}
+
+	/**
+	 * @return the number of processes that have been dropped because the queue was full
+	 */
+	long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return the number of processes that the connector has failed to receive
+	 */
+	long getFailedCount() {
+		return failed.sum();
+	}
+
+	/**
+	 * @return the number of processes waiting in the queue
+	 */
+	int getPendingCount() {
+		return queue.size();
+	}
+}
@@ -17,8 +17,12 @@
  */
 package io.vertigo.core.impl.analytics;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -30,45 +34,131 @@ import io.vertigo.core.analytics.AnalyticsManager;
 import io.vertigo.core.analytics.health.HealthCheck;
 import io.vertigo.core.analytics.health.HealthStatus;
 import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
 import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.analytics.process.ProcessAnalyticsContextSnapshot;
 import io.vertigo.core.analytics.process.ProcessAnalyticsTracer;
 import io.vertigo.core.daemon.DaemonScheduled;
 import io.vertigo.core.impl.analytics.health.HealthAnalyticsUtil;
 import io.vertigo.core.impl.analytics.metric.MetricAnalyticsUtil;
 import io.vertigo.core.impl.analytics.process.ProcessAnalyticsImpl;
+import io.vertigo.core.impl.analytics.process.ProcessAnalyticsSampler;
 import io.vertigo.core.lang.Assertion;
 import io.vertigo.core.node.Node;
+import io.vertigo.core.node.component.Activeable;
 import io.vertigo.core.node.component.AopPlugin;
 import io.vertigo.core.node.component.CoreComponent;
 import io.vertigo.core.node.definition.Definition;
 import io.vertigo.core.node.definition.DefinitionSpace;
 import io.vertigo.core.node.definition.SimpleDefinitionProvider;
+import io.vertigo.core.param.ParamValue;
+import io.vertigo.core.util.StringUtil;
 
 /**
  * Main analytics manager implementation.
  *
  * @author pchretien
  */
-public final class AnalyticsManagerImpl implements AnalyticsManager, SimpleDefinitionProvider {
+public final class AnalyticsManagerImpl implements AnalyticsManager, SimpleDefinitionProvider, Activeable {
+	private static final int DEFAULT_DISPATCH_BATCH_SIZE = 100;
 
 	private final ProcessAnalyticsImpl processAnalyticsImpl;
 	private final List<AnalyticsConnectorPlugin> processConnectorPlugins;
+	private final Consumer<AProcess> onCloseConsumer = this::dispatch;
+	//empty if processes are delivered to the connectors by the threads that trace them
+	private final List<AnalyticsDispatcher> dispatchers;
+	//empty if all the processes are kept
+	private final Optional<ProcessAnalyticsSampler> samplerOpt;
 
 	private final boolean enabled;
 
 	/**
 	 * Constructor.
 	 * @param processConnectorPlugins list of connectors to trace processes
+	 * @param processContextPluginOpt optional plugin for holding the opened tracers elsewhere than on the current thread
+	 * @param recycleTracersOpt optional param for recycling tracers in a pool confined to each thread (false by default)
+	 * @param dispatchQueueSizeOpt optional param for dispatching processes asynchronously, it's the size of the queue of each connector
+	 * @param dispatchBatchSizeOpt optional param for the max number of processes delivered at once to a connector (100 by default)
+	 * @param dispatchOverflowPolicyOpt optional param for the policy applied when the queue is full : dropOldest, dropNewest (by default) or block
+	 * @param samplingRatesOpt optional param for sampling the processes of some categories (ex : sql:0.01,page:0.5), other categories are always kept.
+	 * A root process is drawn when it starts : if it's sampled out, its sub processes are not built and only its failure or its slowness may keep it when it ends.
+	 * The sub processes of a kept root process are drawn when they end with the rate of their own category
+	 * @param samplingKeepFailuresOpt optional param for always keeping the failed processes of sampled categories (true by default)
+	 * @param samplingKeepSlowerThanMillisOpt optional param for always keeping the processes of sampled categories slower than this duration
+	 * @param maxSubProcessesOpt optional param for the max number of sub processes kept by a process (unbounded by default), the next ones are folded by (category, name)
+	 * @param logSlowerThanMillisOpt optional param for logging (at INFO level) only the processes slower than this duration (all by default)
 	 */
 	@Inject
 	public AnalyticsManagerImpl(
-			final List<AnalyticsConnectorPlugin> processConnectorPlugins) {
-		Assertion.check().isNotNull(processConnectorPlugins);
+			final List<AnalyticsConnectorPlugin> processConnectorPlugins,
+			final Optional<ProcessAnalyticsContextPlugin> processContextPluginOpt,
+			@ParamValue("recycleTracers") final Optional<Boolean> recycleTracersOpt,
+			@ParamValue("dispatchQueueSize") final Optional<Integer> dispatchQueueSizeOpt,
+			@ParamValue("dispatchBatchSize") final Optional<Integer> dispatchBatchSizeOpt,
+			@ParamValue("dispatchOverflowPolicy") final Optional<String> dispatchOverflowPolicyOpt,
+			@ParamValue("samplingRates") final Optional<String> samplingRatesOpt,
+			@ParamValue("samplingKeepFailures") final Optional<Boolean> samplingKeepFailuresOpt,
+			@ParamValue("samplingKeepSlowerThanMillis") final Optional<Long> samplingKeepSlowerThanMillisOpt,
+			@ParamValue("maxSubProcesses") final Optional<Integer> maxSubProcessesOpt,
+			@ParamValue("logSlowerThanMillis") final Optional<Long> logSlowerThanMillisOpt) {
+		Assertion.check()
+				.isNotNull(processConnectorPlugins)
+				.isNotNull(processContextPluginOpt)
+				.isNotNull(recycleTracersOpt)
+				.isNotNull(dispatchQueueSizeOpt)
+				.isNotNull(dispatchBatchSizeOpt)
+				.isNotNull(dispatchOverflowPolicyOpt)
+				.isNotNull(samplingRatesOpt)
+				.isNotNull(samplingKeepFailuresOpt)
+				.isNotNull(samplingKeepSlowerThanMillisOpt)
+				.isNotNull(maxSubProcessesOpt)
+				.isNotNull(logSlowerThanMillisOpt)
+				.when(samplingRatesOpt.isEmpty(), () -> Assertion.check()
+						.isTrue(samplingKeepFailuresOpt.isEmpty() && samplingKeepSlowerThanMillisOpt.isEmpty(), "samplingKeepFailures and samplingKeepSlowerThanMillis require samplingRates"));
 		//---
-		processAnalyticsImpl = new ProcessAnalyticsImpl();
+		final boolean recycleTracers = recycleTracersOpt.orElse(false);
+		final int maxSubProcesses = maxSubProcessesOpt.orElse(Integer.MAX_VALUE);
+		final long logSlowerThanMillis = logSlowerThanMillisOpt.orElse(0L);
+		samplerOpt = samplingRatesOpt.map(samplingRates -> new ProcessAnalyticsSampler(
+				ProcessAnalyticsSampler.parseRates(samplingRates),
+				samplingKeepFailuresOpt.orElse(true),
+				samplingKeepSlowerThanMillisOpt));
+		processAnalyticsImpl = processContextPluginOpt.isPresent()
+				? new ProcessAnalyticsImpl(processContextPluginOpt.get(), recycleTracers, maxSubProcesses, logSlowerThanMillis, samplerOpt)
+				: new ProcessAnalyticsImpl(recycleTracers, maxSubProcesses, logSlowerThanMillis, samplerOpt);
 		this.processConnectorPlugins = processConnectorPlugins;
 		// by default if no connector is defined we disable the collect
 		enabled = !this.processConnectorPlugins.isEmpty();
+		if (dispatchQueueSizeOpt.isPresent()) {
+			final AnalyticsDispatchOverflowPolicy overflowPolicy = AnalyticsDispatchOverflowPolicy.valueOf(dispatchOverflowPolicyOpt.orElse(AnalyticsDispatchOverflowPolicy.dropNewest.name()));
+			final List<AnalyticsDispatcher> myDispatchers = new ArrayList<>();
+			for (int i = 0; i < processConnectorPlugins.size(); i++) {
+				final AnalyticsConnectorPlugin processConnectorPlugin = processConnectorPlugins.get(i);
+				myDispatchers.add(new AnalyticsDispatcher(
+						processConnectorPlugin,
+						StringUtil.first2LowerCase(processConnectorPlugin.getClass().getSimpleName()) + i,
+						dispatchQueueSizeOpt.get(),
+						dispatchBatchSizeOpt.orElse(DEFAULT_DISPATCH_BATCH_SIZE),
+						overflowPolicy));
+			}
+			dispatchers = Collections.unmodifiableList(myDispatchers);
+		} else {
+			Assertion.check()
+					.isTrue(dispatchBatchSizeOpt.isEmpty() && dispatchOverflowPolicyOpt.isEmpty(), "dispatchBatchSize and dispatchOverflowPolicy require a dispatchQueueSize");
+			dispatchers = Collections.emptyList();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void start() {
+		dispatchers.forEach(AnalyticsDispatcher::start);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void stop() {
+		dispatchers.forEach(AnalyticsDispatcher::stop);
 	}
 
 	@Override
@@ -91,19 +181,31 @@ public final class AnalyticsManagerImpl implements AnalyticsManager, SimpleDefin
 	/** {@inheritDoc} */
 	@Override
 	public void trace(final String category, final String name, final Consumer<ProcessAnalyticsTracer> consumer) {
-		processAnalyticsImpl.trace(category, name, consumer, this::onClose);
+		processAnalyticsImpl.trace(category, name, consumer, onCloseConsumer);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public <O> O traceWithReturn(final String category, final String name, final Function<ProcessAnalyticsTracer, O> function) {
-		return processAnalyticsImpl.traceWithReturn(category, name, function, this::onClose);
+		return processAnalyticsImpl.traceWithReturn(category, name, function, onCloseConsumer);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <O> CompletionStage<O> traceAsync(final String category, final String name, final Function<ProcessAnalyticsTracer, CompletionStage<O>> function) {
+		return processAnalyticsImpl.traceAsync(category, name, function, onCloseConsumer);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void addProcess(final AProcess process) {
-		onClose(process);
+		Assertion.check().isNotNull(process);
+		//---
+		if (samplerOpt.isPresent() && !samplerOpt.get().isKept(process)) {
+			//the whole tree of processes is dropped
+			return;
+		}
+		dispatch(process);
 	}
 
 	/** {@inheritDoc} */
@@ -116,11 +218,30 @@ public final class AnalyticsManagerImpl implements AnalyticsManager, SimpleDefin
 		return processAnalyticsImpl.getCurrentTracer();
 	}
 
-	private void onClose(final AProcess process) {
-		Assertion.check().isNotNull(process);
+	/** {@inheritDoc} */
+	@Override
+	public ProcessAnalyticsContextSnapshot captureContext() {
+		return processAnalyticsImpl.captureContext();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Executor propagateContext(final Executor executor) {
+		Assertion.check().isNotNull(executor);
 		//---
-		processConnectorPlugins.forEach(
-				processConnectorPlugin -> processConnectorPlugin.add(process));
+		return command -> executor.execute(captureContext().wrap(command));
+	}
+
+	private void dispatch(final AProcess process) {
+		if (dispatchers.isEmpty()) {
+			for (final AnalyticsConnectorPlugin processConnectorPlugin : processConnectorPlugins) {
+				processConnectorPlugin.add(process);
+			}
+		} else {
+			for (final AnalyticsDispatcher dispatcher : dispatchers) {
+				dispatcher.dispatch(process);
+			}
+		}
 	}
 
 	/*----------------- Health ------------------*/
@@ -166,4 +287,32 @@ public final class AnalyticsManagerImpl implements AnalyticsManager, SimpleDefin
 		return MetricAnalyticsUtil.getMetrics();
 	}
 
+	/**
+	 * @return the metrics of the sampling and of the asynchronous dispatch of processes (empty if they are not enabled)
+	 */
+	@Metrics
+	public List<Metric> getDispatchMetrics() {
+		final List<Metric> metrics = new ArrayList<>();
+		if (samplerOpt.isPresent()) {
+			metrics.add(buildDispatchMetric("sampler", "sampledOutProcesses", samplerOpt.get().getSampledOutCount()));
+		}
+		for (final AnalyticsDispatcher dispatcher : dispatchers) {
+			metrics.add(buildDispatchMetric(dispatcher.getName(), "dispatchedProcesses", dispatcher.getDispatchedCount()));
+			metrics.add(buildDispatchMetric(dispatcher.getName(), "droppedProcesses", dispatcher.getDroppedCount()));
+			metrics.add(buildDispatchMetric(dispatcher.getName(), "failedProcesses", dispatcher.getFailedCount()));
+			metrics.add(buildDispatchMetric(dispatcher.getName(), "pendingProcesses", dispatcher.getPendingCount()));
+		}
+		return metrics;
+	}
+
+	private static Metric buildDispatchMetric(final String dispatcherName, final String name, final double value) {
+		return Metric.builder()
+				.withName(name)
+				.withFeature("analytics")
+				.withModule(dispatcherName)
+				.withValue(value)
+				.withSuccess()
+				.build();
+	}
+
 }
@@ -0,0 +1,136 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Bounded lock-free queue backed by an array used as a ring buffer (D. Vyukov's bounded queue).
+ * Each slot holds a sequence number telling whether it may be written (sequence == position)
+ * or read (sequence == position + 1) : producers and consumers only compete on a CAS of their own position
+ * and never take a lock nor allocate a node.
+ *
+ * Many threads may offer and poll at the same time (the dropOldest policy polls from the producers).
+ *
+ * @author pchretien, npiedeloup
+ * @param <E> the type of the elements
+ */
+final class AnalyticsRingBuffer<E> {
+	private final int capacity;
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+	private final AtomicLong enqueuePosition = new AtomicLong();
+	private final AtomicLong dequeuePosition = new AtomicLong();
+
+	/**
+	 * Constructor.
+	 * @param capacity the max number of elements
+	 */
+	AnalyticsRingBuffer(final int capacity) {
+		Assertion.check()
+				.isTrue(capacity > 0, "the capacity {0} must be > 0", capacity);
+		//---
+		this.capacity = capacity;
+		elements = new AtomicReferenceArray<>(capacity);
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds an element if the buffer is not full.
+	 * @param element the element
+	 * @return if the element has been added
+	 */
+	boolean offer(final E element) {
+		Assertion.check().isNotNull(element);
+		//---
+		while (true) {
+			final long position = enqueuePosition.get();
+			final int index = (int) (position % capacity);
+			final long delta = sequences.get(index) - position;
+			if (delta == 0) {
+				if (enqueuePosition.compareAndSet(position, position + 1)) {
+					elements.set(index, element);
+					//the slot may now be read
+					sequences.set(index, position + 1);
+					return true;
+				}
+			} else if (delta < 0) {
+				//the slot has not been read since the previous lap : full
+				return false;
+			}
+			//another producer has taken this position : retry with the next one
+		}
+	}
+
+	/**
+	 * Removes the oldest element.
+	 * @return the oldest element or null if the buffer is empty
+	 */
+	E poll() {
+		while (true) {
+			final long position = dequeuePosition.get();
+			final int index = (int) (position % capacity);
+			final long delta = sequences.get(index) - (position + 1);
+			if (delta == 0) {
+				if (dequeuePosition.compareAndSet(position, position + 1)) {
+					final E element = elements.get(index);
+					elements.set(index, null);
+					//the slot may now be written during the next lap
+					sequences.set(index, position + capacity);
+					return element;
+				}
+			} else if (delta < 0) {
+				//the slot has not been written yet : empty
+				return null;
+			}
+			//another consumer has taken this position : retry with the next one
+		}
+	}
+
+	/**
+	 * Removes at most maxElements elements and adds them to the collection.
+	 * @param collection the collection receiving the elements
+	 * @param maxElements the max number of elements to remove
+	 * @return the number of elements removed
+	 */
+	int drainTo(final Collection<? super E> collection, final int maxElements) {
+		int count = 0;
+		E element;
+		while (count < maxElements && (element = poll()) != null) {
+			collection.add(element);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of elements (an estimate while elements are added or removed)
+	 */
+	int size() {
+		final long size = enqueuePosition.get() - dequeuePosition.get();
+		return (int) Math.max(0, Math.min(size, capacity));
+	}
+}
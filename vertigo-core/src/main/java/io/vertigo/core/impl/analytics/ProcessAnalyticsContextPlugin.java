@@ -0,0 +1,31 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics;
+
+import io.vertigo.core.impl.analytics.process.ProcessAnalyticsContext;
+import io.vertigo.core.node.component.Plugin;
+
+/**
+ * Plugin that replaces the default context of the tracers (bound on the current thread).
+ * It allows to bind the opened tracers on a scope or a continuation, for example when the executions run on virtual threads.
+ *
+ * @author pchretien, npiedeloup
+ */
+public interface ProcessAnalyticsContextPlugin extends ProcessAnalyticsContext, Plugin {
+	//
+}
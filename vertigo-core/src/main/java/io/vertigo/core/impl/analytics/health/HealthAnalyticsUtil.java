@@ -37,6 +37,7 @@ import io.vertigo.core.node.Node;
 import io.vertigo.core.node.component.AopPlugin;
 import io.vertigo.core.node.component.CoreComponent;
 import io.vertigo.core.util.ClassUtil;
+import io.vertigo.core.util.MethodInvoker;
 import io.vertigo.core.util.StringUtil;
 
 /**
@@ -82,6 +83,7 @@ public final class HealthAnalyticsUtil {
 							.isTrue(method.getParameterTypes().length == 0, "health check methods of class {0} must not have any parameter", component.getClass());
 					//-----
 					//2. For each method register a listener
+					final MethodInvoker invoker = ClassUtil.getInvoker(method);
 					// we remove # because it doesn't comply with definition naming rule
 					final String healthCheckDefinitionName = "Hchk" + StringUtil.first2UpperCase(componentId.replaceAll(PLUGIN_COUNTER_CHAR, "")) + "$" + method.getName();
 					return new HealthCheckDefinition(
@@ -90,7 +92,7 @@ public final class HealthAnalyticsUtil {
 							componentId,
 							featureByComponentId.get(componentId),
 							healthChecked.feature(),
-							() -> (HealthMeasure) ClassUtil.invoke(component, method));
+							() -> (HealthMeasure) invoker.invoke(component));
 				})
 				.collect(Collectors.toList());
 
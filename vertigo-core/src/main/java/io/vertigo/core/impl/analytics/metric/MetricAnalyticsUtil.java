@@ -31,6 +31,7 @@ import io.vertigo.core.node.Node;
 import io.vertigo.core.node.component.AopPlugin;
 import io.vertigo.core.node.component.CoreComponent;
 import io.vertigo.core.util.ClassUtil;
+import io.vertigo.core.util.MethodInvoker;
 import io.vertigo.core.util.StringUtil;
 
 /**
@@ -67,11 +68,12 @@ public final class MetricAnalyticsUtil {
 							.isTrue(method.getParameterTypes().length == 0, "metrics supplier methods of class {0} must not have any parameter", component.getClass());
 					//-----
 					//2. For each method register a listener
+					final MethodInvoker invoker = ClassUtil.getInvoker(method);
 					// we remove # because it doesn't comply with definition naming rule
 					final String metricDefinitionName = "Met" + StringUtil.first2UpperCase(componentId.replaceAll(pluginCounterChar, "")) + "$" + method.getName();
 					return new MetricDefinition(
 							metricDefinitionName,
-							() -> (List<Metric>) ClassUtil.invoke(component, method));
+							() -> (List<Metric>) invoker.invoke(component));
 				})
 				.collect(Collectors.toList());
 
@@ -17,6 +17,10 @@
  */
 package io.vertigo.core.impl.analytics.process;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import javax.inject.Inject;
 
 import io.vertigo.core.analytics.AnalyticsManager;
@@ -28,11 +32,13 @@ import io.vertigo.core.util.StringUtil;
 
 /**
  * * Intercepteur de performance des composant.
+ * The category and the name of the process are resolved once per method (when the components are wired).
  *
  * @author jmforhan
  */
 public final class AnalyticsAspect implements Aspect {
 	private final AnalyticsManager analyticsManager;
+	private final Map<Method, AnalyticsMethod> analyticsMethods = new ConcurrentHashMap<>();
 
 	/**
 	 * Constructor.
@@ -53,15 +59,48 @@ public final class AnalyticsAspect implements Aspect {
 
 	/** {@inheritDoc} */
 	@Override
-	public Object invoke(final Object[] args, final AspectMethodInvocation invocation) {
-		//Aspect must be declared on methods or on the class.
-		final Analytics analytics = invocation.getMethod().getAnnotation(Analytics.class) == null ? invocation.getMethod().getDeclaringClass().getAnnotation(Analytics.class)
-				: invocation.getMethod().getAnnotation(Analytics.class);
+	public void prepare(final Method method) {
+		analyticsMethods.computeIfAbsent(method, AnalyticsMethod::of);
+	}
 
-		final String name = StringUtil.isBlank(analytics.name()) ? invocation.getMethod().getDeclaringClass().getSimpleName() + "::" + invocation.getMethod().getName() : analytics.name();
+	/** {@inheritDoc} */
+	@Override
+	public Object invoke(final Object[] args, final AspectMethodInvocation invocation) {
+		//methods are prepared when components are wired, but we stay safe if a method has been missed
+		final AnalyticsMethod analyticsMethod = analyticsMethods.computeIfAbsent(invocation.getMethod(), AnalyticsMethod::of);
+		Assertion.check().isNotNull(analyticsMethod, "an intercepted method must be annotated with @Analytics (or its class)");
+		//---
 		return analyticsManager.traceWithReturn(
-				analytics.category(),
-				name,
+				analyticsMethod.category,
+				analyticsMethod.name,
 				tracer -> invocation.proceed(args));
 	}
+
+	/**
+	 * Category and name of the processes created for a method.
+	 */
+	private static final class AnalyticsMethod {
+		private final String category;
+		private final String name;
+
+		private AnalyticsMethod(final String category, final String name) {
+			this.category = category;
+			this.name = name;
+		}
+
+		/**
+		 * @param method the method
+		 * @return the category and name of the processes, null if neither the method nor its class are annotated
+		 */
+		static AnalyticsMethod of(final Method method) {
+			//Aspect must be declared on methods or on the class.
+			final Analytics analytics = method.getAnnotation(Analytics.class) == null ? method.getDeclaringClass().getAnnotation(Analytics.class)
+					: method.getAnnotation(Analytics.class);
+			if (analytics == null) {
+				return null;
+			}
+			final String name = StringUtil.isBlank(analytics.name()) ? method.getDeclaringClass().getSimpleName() + "::" + method.getName() : analytics.name();
+			return new AnalyticsMethod(analytics.category(), name);
+		}
+	}
 }
@@ -0,0 +1,81 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics.process;
+
+import java.util.concurrent.Callable;
+
+import io.vertigo.core.analytics.process.ProcessAnalyticsContextSnapshot;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Context captured from a thread : while a wrapped task runs, the captured tracer is the current tracer of the thread that runs it.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class CapturedProcessAnalyticsContext implements ProcessAnalyticsContextSnapshot {
+	private final ProcessAnalyticsContext context;
+	private final ProcessAnalyticsTracerImpl tracer; //null if there was no tracer
+
+	/**
+	 * Constructor.
+	 * @param context the context that holds the opened tracers of each execution
+	 * @param tracer the captured tracer (null if there was no tracer)
+	 */
+	CapturedProcessAnalyticsContext(final ProcessAnalyticsContext context, final ProcessAnalyticsTracerImpl tracer) {
+		Assertion.check().isNotNull(context);
+		//---
+		this.context = context;
+		this.tracer = tracer;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Runnable wrap(final Runnable runnable) {
+		Assertion.check().isNotNull(runnable);
+		//---
+		if (tracer == null) {
+			return runnable;
+		}
+		return () -> {
+			context.push(tracer);
+			try {
+				runnable.run();
+			} finally {
+				context.pop();
+			}
+		};
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <V> Callable<V> wrap(final Callable<V> callable) {
+		Assertion.check().isNotNull(callable);
+		//---
+		if (tracer == null) {
+			return callable;
+		}
+		return () -> {
+			context.push(tracer);
+			try {
+				return callable.call();
+			} finally {
+				context.pop();
+			}
+		};
+	}
+}
@@ -0,0 +1,51 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics.process;
+
+import io.vertigo.core.analytics.process.ProcessAnalyticsTracer;
+
+/**
+ * The context holds the stack of the tracers opened by the current execution (a request, a daemon...).
+ * The last opened tracer is the current one, the previous is its parent.
+ *
+ * The default implementation binds the stack on the current thread,
+ * other implementations may bind it on a scope or a continuation : they are provided by a ProcessAnalyticsContextPlugin.
+ * A stack is never shared between executions, so it doesn't need to be synchronized.
+ * The tracers are opaque to the context : it only stores the tracers it receives.
+ *
+ * @author pchretien, npiedeloup
+ */
+public interface ProcessAnalyticsContext {
+
+	/**
+	 * @return the current tracer or null if there is no opened tracer
+	 */
+	ProcessAnalyticsTracer peek();
+
+	/**
+	 * Opens a tracer that becomes the current one.
+	 * @param tracer the tracer
+	 */
+	void push(ProcessAnalyticsTracer tracer);
+
+	/**
+	 * Removes the current tracer.
+	 * @return the parent of the removed tracer (which is now the current one) or null if the removed tracer was the root
+	 */
+	ProcessAnalyticsTracer pop();
+}
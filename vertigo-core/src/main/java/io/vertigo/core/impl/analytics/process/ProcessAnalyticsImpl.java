@@ -18,21 +18,57 @@
 package io.vertigo.core.impl.analytics.process;
 
 import java.util.Optional;
-import java.util.Stack;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.analytics.process.ProcessAnalyticsContextSnapshot;
 import io.vertigo.core.analytics.process.ProcessAnalyticsTracer;
 import io.vertigo.core.lang.Assertion;
 
 public class ProcessAnalyticsImpl {
+	private final ProcessAnalyticsContext context;
+	private final Optional<ProcessAnalyticsTracerPool> tracerPoolOpt;
+	private final int maxSubProcesses;
+	private final long logSlowerThanNanos;
+	private final Optional<ProcessAnalyticsSampler> samplerOpt;
 
 	/**
-	 * Processus binde sur le thread courant. Le processus , recoit les notifications des sondes placees dans le code de
-	 * l'application pendant le traitement d'une requete (thread).
+	 * Constructor.
+	 * The tracers are bound on the current thread.
+	 * @param recycleTracers if tracers (and their builders) are recycled by a pool confined to each thread
+	 * @param maxSubProcesses the max number of sub processes kept by a process, the next ones are folded by (category, name)
+	 * @param logSlowerThanMillis only the processes slower than this duration are logged (0 to log all the processes)
+	 * @param samplerOpt the optional sampler of the processes (all the processes are kept if empty)
 	 */
-	private static final ThreadLocal<Stack<ProcessAnalyticsTracerImpl>> THREAD_LOCAL_PROCESS = new ThreadLocal<>();
+	public ProcessAnalyticsImpl(final boolean recycleTracers, final int maxSubProcesses, final long logSlowerThanMillis, final Optional<ProcessAnalyticsSampler> samplerOpt) {
+		this(new ThreadLocalProcessAnalyticsContext(), recycleTracers, maxSubProcesses, logSlowerThanMillis, samplerOpt);
+	}
+
+	/**
+	 * Constructor.
+	 * @param context the context that holds the opened tracers of the current execution
+	 * @param recycleTracers if tracers (and their builders) are recycled by a pool confined to each thread
+	 * @param maxSubProcesses the max number of sub processes kept by a process, the next ones are folded by (category, name)
+	 * @param logSlowerThanMillis only the processes slower than this duration are logged (0 to log all the processes)
+	 * @param samplerOpt the optional sampler of the processes (all the processes are kept if empty)
+	 */
+	public ProcessAnalyticsImpl(final ProcessAnalyticsContext context, final boolean recycleTracers, final int maxSubProcesses, final long logSlowerThanMillis, final Optional<ProcessAnalyticsSampler> samplerOpt) {
+		Assertion.check()
+				.isNotNull(context)
+				.isNotNull(samplerOpt)
+				.isTrue(maxSubProcesses > 0, "the max number of sub processes {0} must be > 0", maxSubProcesses)
+				.isTrue(logSlowerThanMillis >= 0, "the log threshold {0} must be >= 0", logSlowerThanMillis);
+		//---
+		this.context = context;
+		this.maxSubProcesses = maxSubProcesses;
+		logSlowerThanNanos = TimeUnit.MILLISECONDS.toNanos(logSlowerThanMillis);
+		this.samplerOpt = samplerOpt;
+		tracerPoolOpt = recycleTracers ? Optional.of(new ProcessAnalyticsTracerPool(context, maxSubProcesses, logSlowerThanNanos, samplerOpt.orElse(null))) : Optional.empty();
+	}
 
 	public void trace(final String category, final String name, final Consumer<ProcessAnalyticsTracer> consumer, final Consumer<AProcess> onCloseConsumer) {
 		try (ProcessAnalyticsTracerImpl tracer = createTracer(category, name, onCloseConsumer)) {
@@ -59,40 +95,60 @@ public class ProcessAnalyticsImpl {
 		}
 	}
 
-	public Optional<ProcessAnalyticsTracer> getCurrentTracer() {
-		// When collect feature is enabled
-		return doGetCurrentTracer().map(Function.identity()); // convert impl to api
-	}
-
-	private static Optional<ProcessAnalyticsTracerImpl> doGetCurrentTracer() {
-		if (THREAD_LOCAL_PROCESS.get() == null || THREAD_LOCAL_PROCESS.get().isEmpty()) {
-			return Optional.empty();
+	public <O> CompletionStage<O> traceAsync(final String category, final String name, final Function<ProcessAnalyticsTracer, CompletionStage<O>> function, final Consumer<AProcess> onCloseConsumer) {
+		final ProcessAnalyticsTracerImpl parent = (ProcessAnalyticsTracerImpl) context.peek();
+		if (parent != null) {
+			//the process will be attached to its parent by the thread that completes the stage
+			parent.share();
+		}
+		final ProcessAnalyticsTracerImpl tracer = createTracer(category, name, onCloseConsumer);
+		//the process will be closed by the thread that completes the stage
+		tracer.share();
+		final CompletionStage<O> stage;
+		try {
+			stage = function.apply(tracer);
+			Assertion.check().isNotNull(stage, "the traced function must return a stage");
+		} catch (final Exception e) {
+			tracer.markAsFailed(e);
+			tracer.close();
+			throw e;
 		}
-		return Optional.of(THREAD_LOCAL_PROCESS.get().peek());
+		//the process goes on asynchronously : it's no longer the current process of this thread
+		context.pop();
+		return stage.whenComplete((result, throwable) -> {
+			if (throwable == null) {
+				tracer.markAsSucceeded();
+			} else {
+				tracer.markAsFailed(throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable);
+			}
+			tracer.finish(parent);
+		});
 	}
 
-	private static void push(final ProcessAnalyticsTracerImpl analyticstracer) {
-		Assertion.check().isNotNull(analyticstracer);
-		//---
-		if (THREAD_LOCAL_PROCESS.get() == null) {
-			THREAD_LOCAL_PROCESS.set(new Stack<>());
-		}
-		Assertion.check().isTrue(THREAD_LOCAL_PROCESS.get().size() < 100, "More than 100 process deep. All processes must be closed.");
-		THREAD_LOCAL_PROCESS.get().push(analyticstracer);
+	public Optional<ProcessAnalyticsTracer> getCurrentTracer() {
+		// When collect feature is enabled
+		return Optional.ofNullable(context.peek());
 	}
 
-	private Optional<ProcessAnalyticsTracerImpl> removeCurrentAndGetParentTracer() {
-		THREAD_LOCAL_PROCESS.get().pop();
-		final Optional<ProcessAnalyticsTracerImpl> parentOpt = doGetCurrentTracer();
-		if (parentOpt.isEmpty()) {
-			THREAD_LOCAL_PROCESS.remove();
+	public ProcessAnalyticsContextSnapshot captureContext() {
+		final ProcessAnalyticsTracerImpl tracer = (ProcessAnalyticsTracerImpl) context.peek();
+		if (tracer != null) {
+			//other threads will attach their processes to this tracer
+			tracer.share();
 		}
-		return parentOpt;
+		return new CapturedProcessAnalyticsContext(context, tracer);
 	}
 
 	private ProcessAnalyticsTracerImpl createTracer(final String category, final String name, final Consumer<AProcess> onCloseConsumer) {
-		final ProcessAnalyticsTracerImpl analyticsTracer = new ProcessAnalyticsTracerImpl(category, name, onCloseConsumer, this::removeCurrentAndGetParentTracer);
-		push(analyticsTracer);
+		final ProcessAnalyticsTracerImpl parent = (ProcessAnalyticsTracerImpl) context.peek();
+		//a root process is drawn when it starts, the sub processes of a sampled out root process are sampled out too
+		final boolean sampledOut = parent == null
+				? samplerOpt.isPresent() && !samplerOpt.get().isTraced(category)
+				: parent.isSampledOut();
+		final ProcessAnalyticsTracerImpl analyticsTracer = tracerPoolOpt.isPresent()
+				? tracerPoolOpt.get().acquire(category, name, onCloseConsumer, sampledOut)
+				: new ProcessAnalyticsTracerImpl(category, name, onCloseConsumer, sampledOut, context, maxSubProcesses, logSlowerThanNanos, samplerOpt.orElse(null), null);
+		context.push(analyticsTracer);
 		return analyticsTracer;
 	}
 
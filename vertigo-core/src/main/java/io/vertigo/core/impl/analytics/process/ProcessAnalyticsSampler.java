@@ -0,0 +1,154 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics.process;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Decides which processes are sent to the connectors.
+ *
+ * A root process of a sampled category is drawn when it starts (head sampling) :
+ * if it's sampled out, its sub processes are neither built nor attached, so the sampling saves the cost of the tracing
+ * as well as the cost of the connectors (dispatch, serialization, network, storage).
+ * When it ends, a sampled out root process is still kept (without its sub processes) if it has failed or if it's slow (tail overrides).
+ *
+ * The sub processes of a kept root process are drawn when they end, with the rate of their own category :
+ * a sampled out sub process is dropped with its sub processes.
+ *
+ * The rules applied to a process (or to a sub process) are :
+ *  - a process is kept if its category is not sampled
+ *  - a failed process (success measure equals 0) is kept if the failures are always kept
+ *  - a process slower than the threshold is kept
+ *  - otherwise the process is kept with the probability defined by the sampling rate of its category
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class ProcessAnalyticsSampler {
+	private static final String SUCCESS_MEASURE = "success";
+
+	private final Map<String, Double> ratesByCategory;
+	private final boolean keepFailures;
+	private final long keepSlowerThanNanos;
+	private final LongAdder sampledOutProcesses = new LongAdder();
+
+	/**
+	 * Constructor.
+	 * @param ratesByCategory the sampling rate (between 0 and 1) by category
+	 * @param keepFailures if the failed processes are always kept
+	 * @param keepSlowerThanMillisOpt the optional duration (in ms) over which the processes are always kept
+	 */
+	public ProcessAnalyticsSampler(
+			final Map<String, Double> ratesByCategory,
+			final boolean keepFailures,
+			final Optional<Long> keepSlowerThanMillisOpt) {
+		Assertion.check()
+				.isNotNull(ratesByCategory)
+				.isNotNull(keepSlowerThanMillisOpt);
+		ratesByCategory.forEach((category, rate) -> Assertion.check()
+				.isTrue(rate >= 0 && rate <= 1, "the sampling rate {0} of the category {1} must be between 0 and 1", rate, category));
+		//---
+		this.ratesByCategory = Map.copyOf(ratesByCategory);
+		this.keepFailures = keepFailures;
+		keepSlowerThanNanos = keepSlowerThanMillisOpt.map(TimeUnit.MILLISECONDS::toNanos).orElse(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Parses the sampling rates.
+	 * @param samplingRates the sampling rates as a list of category:rate separated by a comma (ex : sql:0.01,page:0.5)
+	 * @return the sampling rate by category
+	 */
+	public static Map<String, Double> parseRates(final String samplingRates) {
+		Assertion.check().isNotBlank(samplingRates);
+		//---
+		final Map<String, Double> ratesByCategory = new HashMap<>();
+		for (final String samplingRate : samplingRates.split(",")) {
+			final String[] categoryAndRate = samplingRate.trim().split(":");
+			Assertion.check().isTrue(categoryAndRate.length == 2, "the sampling rate '{0}' must be defined as category:rate", samplingRate);
+			//---
+			ratesByCategory.put(categoryAndRate[0].trim(), Double.valueOf(categoryAndRate[1].trim()));
+		}
+		return ratesByCategory;
+	}
+
+	/**
+	 * Draws a root process when it starts.
+	 * @param category the category of the root process
+	 * @return if the root process is traced with its sub processes
+	 */
+	boolean isTraced(final String category) {
+		final Double rate = ratesByCategory.get(category);
+		//a category that is not sampled is always traced
+		return rate == null || ThreadLocalRandom.current().nextDouble() < rate;
+	}
+
+	/**
+	 * Applies the tail overrides to a root process that has been sampled out when it started.
+	 * @param process the root process (without its sub processes)
+	 * @return if the process is kept anyway because it has failed or because it's slow
+	 */
+	boolean isKeptWhenSampledOut(final AProcess process) {
+		if (isKeptAnyway(process)) {
+			return true;
+		}
+		sampledOutProcesses.increment();
+		return false;
+	}
+
+	/**
+	 * @param process the ended process (or sub process)
+	 * @return if the process (and its sub processes) must be sent to the connectors
+	 */
+	public boolean isKept(final AProcess process) {
+		if (isKeptAnyway(process) || isTraced(process.getCategory())) {
+			return true;
+		}
+		sampledOutProcesses.increment();
+		return false;
+	}
+
+	/**
+	 * @return the number of processes (or sub processes) that have been dropped with their sub processes
+	 */
+	public long getSampledOutCount() {
+		return sampledOutProcesses.sum();
+	}
+
+	private boolean isKeptAnyway(final AProcess process) {
+		if (!ratesByCategory.containsKey(process.getCategory())) {
+			//this category is not sampled
+			return true;
+		}
+		if (keepFailures && isFailed(process)) {
+			return true;
+		}
+		return process.getDurationNanos() > keepSlowerThanNanos;
+	}
+
+	private static boolean isFailed(final AProcess process) {
+		final Double success = process.getMeasures().get(SUCCESS_MEASURE);
+		return success != null && success == 0;
+	}
+}
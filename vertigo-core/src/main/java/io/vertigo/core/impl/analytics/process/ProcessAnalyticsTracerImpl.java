@@ -17,12 +17,13 @@
  */
 package io.vertigo.core.impl.analytics.process;
 
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
 import io.vertigo.core.analytics.process.AProcess;
 import io.vertigo.core.analytics.process.AProcessBuilder;
@@ -31,39 +32,105 @@ import io.vertigo.core.lang.Assertion;
 
 /**
  * A tracer collectes information durint the execution of a process.
+ * A tracer is confined to its thread, unless its context is captured to be used by other threads :
+ * it's then shared, its operations are synchronized and it's never recycled.
  * @author npiedeloup
  */
 final class ProcessAnalyticsTracerImpl implements ProcessAnalyticsTracer, AutoCloseable {
-	private final Logger logger;
+	//loggers are resolved once per category
+	private static final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+	private static final String FINISH = "Finish {}{} in ( {} ms)";
+	private static final String FINISH_WITH_MEASURES = FINISH + " measures:{}";
+	private static final String FINISH_WITH_TAGS = FINISH + " metaData:{}";
+	private static final String FINISH_WITH_MEASURES_AND_TAGS = FINISH_WITH_MEASURES + " metaData:{}";
+	private static final String SUCCESSFULLY = " successfully";
+	private static final String WITH_ERROR = " with error";
+	private static final String WITH_INTERNAL_ERROR = " with internal error";
+
+	private Logger logger;
 
 	private Boolean succeeded; //default no info
 	private Throwable causeException; //default no info
-	private final Consumer<AProcess> consumer;
-	private final Supplier<Optional<ProcessAnalyticsTracerImpl>> parentOptSupplier;
+	private Consumer<AProcess> consumer;
+	private final ProcessAnalyticsContext context;
+	private final Consumer<ProcessAnalyticsTracerImpl> releaser; //called when the tracer is closed, may be null
 	private final AProcessBuilder processBuilder;
+	private final long logSlowerThanNanos;
+	private final ProcessAnalyticsSampler sampler; //may be null
+	private boolean sampledOut; //the root process has been sampled out : this process is neither built nor attached
+	private boolean shared; //set by the owner thread before any other thread may see this tracer
+	private boolean closed; //only used by shared tracers
 
 	/**
 	 * Constructor.
-	 * @param parentOpt Optional Parent of this tracer
 	 * @param category the category where the process is stored
 	 * @param name the name that identified the process
 	 * @param consumer Consumer of this process after closing
+	 * @param sampledOut if the root process of this process has been sampled out
+	 * @param context the context that holds the opened tracers
+	 * @param maxSubProcesses the max number of sub processes kept by the process, the next ones are folded by (category, name)
+	 * @param logSlowerThanNanos only the processes slower than this duration are logged
+	 * @param sampler the sampler of the processes (null if all the processes are kept)
+	 * @param releaser Consumer called to recycle this tracer after closing (null if the tracer is not recyclable)
 	 */
 	ProcessAnalyticsTracerImpl(
 			final String category,
 			final String name,
 			final Consumer<AProcess> consumer,
-			final Supplier<Optional<ProcessAnalyticsTracerImpl>> parentOptSupplier) {
+			final boolean sampledOut,
+			final ProcessAnalyticsContext context,
+			final int maxSubProcesses,
+			final long logSlowerThanNanos,
+			final ProcessAnalyticsSampler sampler,
+			final Consumer<ProcessAnalyticsTracerImpl> releaser) {
+		Assertion.check()
+				.isNotNull(context);
+		//---
+		this.context = context;
+		this.releaser = releaser;
+		this.logSlowerThanNanos = logSlowerThanNanos;
+		this.sampler = sampler;
+		processBuilder = AProcess.builder(category, name)
+				.withMaxSubProcesses(maxSubProcesses);
+		init(category, name, consumer, sampledOut);
+	}
+
+	/**
+	 * Reopens a recycled tracer for a new process.
+	 * @param category the category where the process is stored
+	 * @param name the name that identified the process
+	 * @param processConsumer Consumer of this process after closing
+	 * @param processSampledOut if the root process of this process has been sampled out
+	 * @return this tracer
+	 */
+	ProcessAnalyticsTracerImpl reopen(
+			final String category,
+			final String name,
+			final Consumer<AProcess> processConsumer,
+			final boolean processSampledOut) {
+		Assertion.check().isNotNull(releaser, "only a recyclable tracer can be reopened");
+		//---
+		processBuilder.reset(category, name);
+		init(category, name, processConsumer, processSampledOut);
+		return this;
+	}
+
+	private void init(
+			final String category,
+			final String name,
+			final Consumer<AProcess> processConsumer,
+			final boolean processSampledOut) {
 		Assertion.check()
 				.isNotBlank(category)
 				.isNotBlank(name)
-				.isNotNull(consumer);
+				.isNotNull(processConsumer);
 		//---
-		logger = LogManager.getLogger(category);
-		this.consumer = consumer;
-		this.parentOptSupplier = parentOptSupplier;
-
-		processBuilder = AProcess.builder(category, name);
+		logger = getLogger(category);
+		consumer = processConsumer;
+		sampledOut = processSampledOut;
+		closed = false;
+		succeeded = null;
+		causeException = null;
 		if (logger.isDebugEnabled()) {
 			logger.debug("Start {}", name);
 		}
@@ -72,63 +139,152 @@ final class ProcessAnalyticsTracerImpl implements ProcessAnalyticsTracer, AutoCl
 	/** {@inheritDoc} */
 	@Override
 	public ProcessAnalyticsTracer incMeasure(final String name, final double value) {
-		processBuilder.incMeasure(name, value);
+		if (shared) {
+			synchronized (this) {
+				processBuilder.incMeasure(name, value);
+			}
+		} else {
+			processBuilder.incMeasure(name, value);
+		}
 		return this;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ProcessAnalyticsTracer setMeasure(final String name, final double value) {
-		processBuilder.setMeasure(name, value);
+		if (shared) {
+			synchronized (this) {
+				processBuilder.setMeasure(name, value);
+			}
+		} else {
+			processBuilder.setMeasure(name, value);
+		}
 		return this;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ProcessAnalyticsTracer addTag(final String name, final String value) {
-		processBuilder.addTag(name, value);
+		if (shared) {
+			synchronized (this) {
+				processBuilder.addTag(name, value);
+			}
+		} else {
+			processBuilder.addTag(name, value);
+		}
 		return this;
 	}
 
+	/**
+	 * Shares this tracer with other threads : sub processes may then be attached by any thread.
+	 * Must be called by the thread that owns this tracer.
+	 */
+	void share() {
+		shared = true;
+	}
+
+	/**
+	 * @return if the root process of this process has been sampled out
+	 */
+	boolean isSampledOut() {
+		return sampledOut;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void close() {
+		finish((ProcessAnalyticsTracerImpl) context.pop());
+	}
+
+	/**
+	 * Ends the process : it's attached to its parent or sent to the consumer if it's a root process.
+	 * @param parent the tracer of the parent process (null if it's a root process)
+	 */
+	void finish(final ProcessAnalyticsTracerImpl parent) {
+		if (sampledOut && parent != null && !logger.isInfoEnabled()) {
+			//the root process has been sampled out : this sub process would only be built to be logged
+			release();
+			return;
+		}
 		if (succeeded != null) {
 			setMeasure("success", succeeded ? 100 : 0);
 		}
 		if (causeException != null) {
 			addTag("exception", causeException.getClass().getName());
 		}
-		final AProcess process = processBuilder.build();
+		final AProcess process;
+		if (shared) {
+			synchronized (this) {
+				process = processBuilder.build();
+				closed = true;
+			}
+		} else {
+			process = processBuilder.build();
+		}
 		logProcess(process);
 
-		final Optional<ProcessAnalyticsTracerImpl> parentOpt = parentOptSupplier.get();
-		if (parentOpt.isPresent()) {
+		if (parent == null) {
+			//when the current process is the root process, it's finished and must be sent to the connector (unless it's sampled out)
+			if (!sampledOut || sampler.isKeptWhenSampledOut(process)) {
+				consumer.accept(process);
+			}
+		} else if (!sampledOut && (sampler == null || sampler.isKept(process)) && !parent.attachSubProcess(process)) {
 			//when the current process is a subProcess, it's finished and must be added to the parent
-			parentOpt.get().processBuilder.addSubProcess(process);
-		} else {
-			//when the current process is the root process, it's finished and must be sent to the connector
+			//if its parent is already closed, it must be sent to the connector
 			consumer.accept(process);
 		}
+		release();
+	}
+
+	private void release() {
+		if (releaser != null && !shared) {
+			//the tracer must not be used anymore : it's given back to its pool
+			consumer = null;
+			causeException = null;
+			releaser.accept(this);
+		}
+	}
+
+	/**
+	 * Attaches a finished sub process.
+	 * @param subProcess the sub process
+	 * @return if the sub process has been attached (false if this tracer is already closed)
+	 */
+	private boolean attachSubProcess(final AProcess subProcess) {
+		if (!shared) {
+			//the sub process has been traced by the owner thread : this tracer is still opened
+			processBuilder.addSubProcess(subProcess);
+			return true;
+		}
+		synchronized (this) {
+			if (closed) {
+				return false;
+			}
+			processBuilder.addSubProcess(subProcess);
+			return true;
+		}
 	}
 
 	private void logProcess(final AProcess process) {
-		if (logger.isInfoEnabled()) {
-			boolean hasMeasures = !process.getMeasures().isEmpty();
-			boolean hasTags = !process.getTags().isEmpty();
-			final String info = new StringBuilder()
-					.append("Finish ")
-					.append(process.getName())
-					.append(succeeded != null ? (succeeded ? " successfully" : " with error") : "with internal error")
-					.append(" in ( ")
-					.append(process.getDurationMillis())
-					.append(" ms)")
-					.append(hasMeasures ? " measures:" + process.getMeasures() : "")
-					.append(hasTags ? " metaData:" + process.getTags() : "")
-					.toString();
-			logger.info(info);
+		if (process.getDurationNanos() >= logSlowerThanNanos && logger.isInfoEnabled()) {
+			//parameterized messages : nothing is formatted if the message is filtered
+			final String status = succeeded != null ? (succeeded ? SUCCESSFULLY : WITH_ERROR) : WITH_INTERNAL_ERROR;
+			final boolean hasMeasures = !process.getMeasures().isEmpty();
+			final boolean hasTags = !process.getTags().isEmpty();
+			if (hasMeasures && hasTags) {
+				logger.info(FINISH_WITH_MEASURES_AND_TAGS, process.getName(), status, Unbox.box(process.getDurationMillis()), process.getMeasures(), process.getTags());
+			} else if (hasMeasures) {
+				logger.info(FINISH_WITH_MEASURES, process.getName(), status, Unbox.box(process.getDurationMillis()), process.getMeasures());
+			} else if (hasTags) {
+				logger.info(FINISH_WITH_TAGS, process.getName(), status, Unbox.box(process.getDurationMillis()), process.getTags());
+			} else {
+				logger.info(FINISH, process.getName(), status, Unbox.box(process.getDurationMillis()));
+			}
 		}
+	}
 
+	private static Logger getLogger(final String category) {
+		return LOGGERS.computeIfAbsent(category, LogManager::getLogger);
 	}
 
 	/**
@@ -0,0 +1,82 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics.process;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+import io.vertigo.core.analytics.process.AProcess;
+
+/**
+ * Pool of recyclable tracers.
+ * Each thread owns its tracers : a tracer is taken when a process starts and given back when it's closed.
+ * So a traced call doesn't allocate any tracer nor builder once the pool of the thread is warm.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class ProcessAnalyticsTracerPool {
+	/**
+	 * Max number of free tracers kept by a thread (only nested processes need more than one tracer).
+	 */
+	private static final int MAX_FREE_TRACERS = 16;
+
+	private final ThreadLocal<Deque<ProcessAnalyticsTracerImpl>> threadLocalFreeTracers = ThreadLocal.withInitial(ArrayDeque::new);
+	private final ProcessAnalyticsContext context;
+	private final int maxSubProcesses;
+	private final long logSlowerThanNanos;
+	private final ProcessAnalyticsSampler sampler; //may be null
+	private final Consumer<ProcessAnalyticsTracerImpl> releaser = this::release;
+
+	/**
+	 * Constructor.
+	 * @param context the context that holds the opened tracers
+	 * @param maxSubProcesses the max number of sub processes kept by a process
+	 * @param logSlowerThanNanos only the processes slower than this duration are logged
+	 * @param sampler the sampler of the processes (null if all the processes are kept)
+	 */
+	ProcessAnalyticsTracerPool(final ProcessAnalyticsContext context, final int maxSubProcesses, final long logSlowerThanNanos, final ProcessAnalyticsSampler sampler) {
+		this.context = context;
+		this.maxSubProcesses = maxSubProcesses;
+		this.logSlowerThanNanos = logSlowerThanNanos;
+		this.sampler = sampler;
+	}
+
+	/**
+	 * Takes a tracer from the pool of the current thread (or creates a new one if the pool is empty).
+	 * @param category the category where the process is stored
+	 * @param name the name that identified the process
+	 * @param consumer Consumer of the process after closing
+	 * @param sampledOut if the root process of this process has been sampled out
+	 * @return an opened tracer
+	 */
+	ProcessAnalyticsTracerImpl acquire(final String category, final String name, final Consumer<AProcess> consumer, final boolean sampledOut) {
+		final ProcessAnalyticsTracerImpl tracer = threadLocalFreeTracers.get().pollFirst();
+		if (tracer == null) {
+			return new ProcessAnalyticsTracerImpl(category, name, consumer, sampledOut, context, maxSubProcesses, logSlowerThanNanos, sampler, releaser);
+		}
+		return tracer.reopen(category, name, consumer, sampledOut);
+	}
+
+	private void release(final ProcessAnalyticsTracerImpl tracer) {
+		final Deque<ProcessAnalyticsTracerImpl> freeTracers = threadLocalFreeTracers.get();
+		if (freeTracers.size() < MAX_FREE_TRACERS) {
+			freeTracers.addFirst(tracer);
+		}
+	}
+}
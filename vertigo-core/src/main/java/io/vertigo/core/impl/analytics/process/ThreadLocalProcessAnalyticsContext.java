@@ -0,0 +1,87 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics.process;
+
+import java.util.Arrays;
+
+import io.vertigo.core.analytics.process.ProcessAnalyticsTracer;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.ResettableThreadLocal;
+
+/**
+ * Context of tracers bound on the current thread.
+ * The tracers are stored in an array (not synchronized) and the thread local is read only once per operation.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class ThreadLocalProcessAnalyticsContext implements ProcessAnalyticsContext {
+	private static final int MAX_DEPTH = 100;
+
+	/**
+	 * Processus binde sur le thread courant. Le processus , recoit les notifications des sondes placees dans le code de
+	 * l'application pendant le traitement d'une requete (thread).
+	 * The stack is reset between two daemon runs : a process left opened by a run is not seen by the next one.
+	 */
+	private final ThreadLocal<TracerStack> threadLocalStack = ResettableThreadLocal.withInitial(TracerStack::new);
+
+	/** {@inheritDoc} */
+	@Override
+	public ProcessAnalyticsTracer peek() {
+		return threadLocalStack.get().peek();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void push(final ProcessAnalyticsTracer tracer) {
+		Assertion.check().isNotNull(tracer);
+		//---
+		threadLocalStack.get().push(tracer);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ProcessAnalyticsTracer pop() {
+		return threadLocalStack.get().pop();
+	}
+
+	private static final class TracerStack {
+		private ProcessAnalyticsTracer[] tracers = new ProcessAnalyticsTracer[8];
+		private int size;
+
+		ProcessAnalyticsTracer peek() {
+			return size == 0 ? null : tracers[size - 1];
+		}
+
+		void push(final ProcessAnalyticsTracer tracer) {
+			Assertion.check().isTrue(size < MAX_DEPTH, "More than 100 process deep. All processes must be closed.");
+			//---
+			if (size == tracers.length) {
+				tracers = Arrays.copyOf(tracers, size * 2);
+			}
+			tracers[size++] = tracer;
+		}
+
+		ProcessAnalyticsTracer pop() {
+			Assertion.check().isTrue(size > 0, "There is no process to close.");
+			//---
+			//the reference is released so that a closed tracer is not retained by the thread
+			tracers[--size] = null;
+			return peek();
+		}
+	}
+}
@@ -19,9 +19,13 @@ package io.vertigo.core.impl.daemon;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import io.vertigo.core.daemon.Daemon;
@@ -34,12 +38,51 @@ import io.vertigo.core.node.component.Activeable;
 /**
  * This class executes the daemons that have been previously registered.
  *
+ * The timing is separated from the execution :
+ *  - a single timer thread triggers the runs,
+ *  - the runs are executed by a pool of workers, created when needed and released when idle.
+ * So a slow daemon doesn't delay the other ones, as long as there are enough workers.
+ *
  * @author mlaroche, pchretien, npiedeloup
  */
 final class DaemonExecutor implements Activeable {
 	private boolean isActive;
-	private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+	private final ScheduledThreadPoolExecutor timer;
+	//renews the leases of the cluster-singleton daemons, out of the timer as the lock may be slow
+	private final ScheduledThreadPoolExecutor leaseRenewer;
+	private final ThreadPoolExecutor workers;
 	private final List<DaemonListener> daemonListeners = new ArrayList<>();
+	private final Optional<DaemonLockPlugin> daemonLockPluginOpt;
+
+	/**
+	 * Constructor.
+	 * @param daemonLockPluginOpt the optional lock of the cluster-singleton daemons
+	 * @param maxWorkers the max number of daemons running at the same time
+	 * @param workerKeepAliveSeconds the duration after which an idle worker is released
+	 */
+	DaemonExecutor(final Optional<DaemonLockPlugin> daemonLockPluginOpt, final int maxWorkers, final int workerKeepAliveSeconds) {
+		Assertion.check()
+				.isNotNull(daemonLockPluginOpt)
+				.isTrue(maxWorkers > 0, "maxWorkers {0} must be > 0", maxWorkers)
+				.isTrue(workerKeepAliveSeconds > 0, "workerKeepAliveSeconds {0} must be > 0", workerKeepAliveSeconds);
+		//---
+		this.daemonLockPluginOpt = daemonLockPluginOpt;
+		timer = new ScheduledThreadPoolExecutor(1, createThreadFactory("vertigo-daemon-timer"));
+		//the pending runs are dropped when the executor stops
+		timer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		//the timeouts of the runs ended in time are removed at once
+		timer.setRemoveOnCancelPolicy(true);
+		leaseRenewer = new ScheduledThreadPoolExecutor(1, createThreadFactory("vertigo-daemon-lease"));
+		leaseRenewer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+		leaseRenewer.setRemoveOnCancelPolicy(true);
+		workers = new ThreadPoolExecutor(maxWorkers, maxWorkers, workerKeepAliveSeconds, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), createThreadFactory("vertigo-daemon-worker"));
+		workers.allowCoreThreadTimeOut(true);
+	}
+
+	private static ThreadFactory createThreadFactory(final String prefix) {
+		final AtomicInteger counter = new AtomicInteger();
+		return runnable -> new Thread(runnable, prefix + '-' + counter.incrementAndGet());
+	}
 
 	private static Daemon createDaemon(final DaemonDefinition daemonDefinition) {
 		return daemonDefinition.getDaemonSupplier().get();
@@ -47,22 +90,23 @@ final class DaemonExecutor implements Activeable {
 
 	/**
 	* Registers a new daemon.
-	* It will be executed after the delay (in milliseconds)
-	* and will be periodically executed after the period (in milliseconds)
+	* It will be executed after its period
+	* and will be periodically executed after the period (from the end of the previous run).
 	*
 	* @param daemonDefinition the daemon definition
-	* @param daemon Daemon to schedule.
 	*/
 	void scheduleDaemon(final DaemonDefinition daemonDefinition) {
 		Assertion.check()
 				.isNotNull(daemonDefinition)
-				.isTrue(isActive, "Manager must be active to schedule a daemon");
+				.isTrue(isActive, "Manager must be active to schedule a daemon")
+				.isTrue(!daemonDefinition.isClusterSingleton() || daemonLockPluginOpt.isPresent(), "Daemon {0} is a cluster singleton : a DaemonLockPlugin is required", daemonDefinition.getName());
 		// -----
 		final Daemon daemon = createDaemon(daemonDefinition);
 		final DaemonListener daemonListener = new DaemonListener(daemonDefinition, daemon.verbose());
 		final DaemonTimerTask timerTask = new DaemonTimerTask(daemonListener, daemon);
 		daemonListeners.add(daemonListener);
-		scheduler.scheduleWithFixedDelay(timerTask, daemonDefinition.getPeriodInSeconds(), daemonDefinition.getPeriodInSeconds(), TimeUnit.SECONDS);
+		final Optional<DaemonLockPlugin> lockOpt = daemonDefinition.isClusterSingleton() ? daemonLockPluginOpt : Optional.empty();
+		new ScheduledDaemon(daemonDefinition, daemonListener, timerTask, lockOpt, timer, leaseRenewer, workers).start();
 	}
 
 	/**
@@ -84,14 +128,18 @@ final class DaemonExecutor implements Activeable {
 	/** {@inheritDoc} */
 	@Override
 	public void stop() {
-		scheduler.shutdown();
 		isActive = false;
+		workers.shutdown();
 		try {
-			scheduler.awaitTermination(5000, TimeUnit.SECONDS);
+			//the timer is stopped only once the runs have ended : it interrupts the runs exceeding their timeout
+			workers.awaitTermination(5000, TimeUnit.SECONDS);
 		} catch (final InterruptedException e) {
 			// Restore interrupted state...
 			Thread.currentThread().interrupt();
 			throw WrappedException.wrap(e);
+		} finally {
+			timer.shutdownNow();
+			leaseRenewer.shutdownNow();
 		}
 	}
 }
@@ -17,6 +17,9 @@
  */
 package io.vertigo.core.impl.daemon;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -27,10 +30,18 @@ import io.vertigo.core.lang.Assertion;
 final class DaemonListener {
 	private static final Logger LOG = LogManager.getLogger(DaemonListener.class);
 
-	private long successes;
-	private boolean lastExecSucceed;
-	private long failures;
-	private DaemonStat.Status status = DaemonStat.Status.pending;
+	//The counters are lock free : the stats are read while the daemon is running.
+	//A snapshot is not atomic as a whole, each counter is consistent on its own.
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder missed = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder lockFailures = new LongAdder();
+	private final LongAdder totalDurationMillis = new LongAdder();
+	private final AtomicLong maxDurationMillis = new AtomicLong();
+	private volatile long lastDurationMillis;
+	private volatile boolean lastExecSucceed;
+	private volatile DaemonStat.Status status = DaemonStat.Status.pending;
 	private final DaemonDefinition daemonDefinition;
 	private final boolean verbose;
 
@@ -41,34 +52,76 @@ final class DaemonListener {
 		this.verbose = verbose;
 	}
 
-	//Les synchronized sont placés de façon à garantir l'intégrité des données
-	//On effectue une copie/snapshot des stats de façon à ne pas perturber la suite du fonctionnement.
-
-	synchronized DaemonStat getStat() {
+	DaemonStat getStat() {
 		//On copie les données
-		return new DaemonStatImpl(daemonDefinition, successes, failures, status, lastExecSucceed);
+		return new DaemonStatImpl(
+				daemonDefinition,
+				successes.sum(),
+				failures.sum(),
+				status,
+				lastExecSucceed,
+				lastDurationMillis,
+				totalDurationMillis.sum(),
+				maxDurationMillis.get(),
+				missed.sum(),
+				timeouts.sum(),
+				lockFailures.sum());
 	}
 
-	synchronized void onStart() {
+	void onStart() {
 		status = DaemonStat.Status.running;
 		if (verbose) {
 			LOG.info("Start daemon: {}", daemonDefinition.getName());
 		}
 	}
 
-	synchronized void onFailure(final Exception e) {
-		status = DaemonStat.Status.pending;
-		failures++;
+	void onFailure(final Exception e, final long durationMillis) {
+		onEnd(durationMillis);
+		failures.increment();
 		lastExecSucceed = false;
 		LOG.error("Daemon :  an error has occured during the execution of the daemon: " + daemonDefinition.getName(), e);
 	}
 
-	synchronized void onSuccess() {
-		status = DaemonStat.Status.pending;
-		successes++;
+	void onSuccess(final long durationMillis) {
+		onEnd(durationMillis);
+		successes.increment();
 		lastExecSucceed = true;
 		if (verbose) {
-			LOG.info("Execution succeeded on daemon: {}", daemonDefinition.getName());
+			LOG.info("Execution succeeded on daemon: {} in {} ms", daemonDefinition.getName(), durationMillis);
+		}
+	}
+
+	private void onEnd(final long durationMillis) {
+		status = DaemonStat.Status.pending;
+		lastDurationMillis = durationMillis;
+		totalDurationMillis.add(durationMillis);
+		maxDurationMillis.accumulateAndGet(durationMillis, Math::max);
+	}
+
+	void onMissed() {
+		missed.increment();
+		if (verbose) {
+			LOG.info("Execution skipped on daemon: {}, the previous one is still running", daemonDefinition.getName());
 		}
 	}
+
+	void onLockedElsewhere() {
+		if (verbose) {
+			LOG.info("Execution skipped on daemon: {}, another node runs it", daemonDefinition.getName());
+		}
+	}
+
+	void onLockFailure(final Exception e) {
+		lockFailures.increment();
+		LOG.error("Daemon : the lock of the daemon " + daemonDefinition.getName() + " has failed", e);
+	}
+
+	void onLockLost() {
+		LOG.warn("Daemon : the lock of the daemon {} has been lost during a run", daemonDefinition.getName());
+	}
+
+	void onTimeout() {
+		timeouts.increment();
+		LOG.warn("Daemon : the execution of the daemon {} exceeded its timeout and has been interrupted", daemonDefinition.getName());
+	}
 }
@@ -0,0 +1,55 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.daemon;
+
+import io.vertigo.core.node.component.Plugin;
+
+/**
+ * Lock shared by the nodes of a cluster, so that a cluster-singleton daemon is executed by only one node for each run.
+ * A lock is a lease : it expires by itself, even if the node that holds it stops during a run.
+ * The node that holds the lock renews the lease as long as the run is in progress.
+ *
+ * @author npiedeloup
+ */
+public interface DaemonLockPlugin extends Plugin {
+
+	/**
+	 * Tries to lock a run of a daemon.
+	 * The lock is acquired only if it's free or if the previous lease has expired.
+	 * @param daemonName the name of the daemon
+	 * @param leaseMillis the max duration of the lock
+	 * @return if this node holds the lock
+	 */
+	boolean tryLock(String daemonName, long leaseMillis);
+
+	/**
+	 * Renews the lease of a lock held by this node.
+	 * @param daemonName the name of the daemon
+	 * @param leaseMillis the new duration of the lock, from now
+	 * @return if this node still holds the lock
+	 */
+	boolean renew(String daemonName, long leaseMillis);
+
+	/**
+	 * Releases the lock of a daemon held by this node.
+	 * The lock is kept until the given time, so that the other nodes skip the same run.
+	 * @param daemonName the name of the daemon
+	 * @param keepUntilMillis the time until which the lock is kept (the lock is free at once if it's already passed)
+	 */
+	void unlock(String daemonName, long keepUntilMillis);
+}
@@ -17,7 +17,9 @@
  */
 package io.vertigo.core.impl.daemon;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -28,11 +30,14 @@ import io.vertigo.core.analytics.AnalyticsManager;
 import io.vertigo.core.analytics.health.HealthChecked;
 import io.vertigo.core.analytics.health.HealthMeasure;
 import io.vertigo.core.analytics.health.HealthMeasureBuilder;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
 import io.vertigo.core.daemon.Daemon;
 import io.vertigo.core.daemon.DaemonManager;
 import io.vertigo.core.daemon.DaemonScheduled;
 import io.vertigo.core.daemon.DaemonStat;
 import io.vertigo.core.daemon.definitions.DaemonDefinition;
+import io.vertigo.core.daemon.definitions.DaemonSchedule;
 import io.vertigo.core.lang.Assertion;
 import io.vertigo.core.node.Node;
 import io.vertigo.core.node.component.Activeable;
@@ -41,7 +46,9 @@ import io.vertigo.core.node.component.CoreComponent;
 import io.vertigo.core.node.definition.Definition;
 import io.vertigo.core.node.definition.DefinitionSpace;
 import io.vertigo.core.node.definition.SimpleDefinitionProvider;
+import io.vertigo.core.param.ParamValue;
 import io.vertigo.core.util.ClassUtil;
+import io.vertigo.core.util.MethodInvoker;
 
 /**
  * Manager of all the daemons.
@@ -49,18 +56,35 @@ import io.vertigo.core.util.ClassUtil;
  * @author mlaroche, pchretien, npiedeloup
  */
 public final class DaemonManagerImpl implements DaemonManager, Activeable, SimpleDefinitionProvider {
+	private static final int DEFAULT_WORKER_KEEP_ALIVE_SECONDS = 60;
 
-	private final DaemonExecutor daemonExecutor = new DaemonExecutor();
+	private final DaemonExecutor daemonExecutor;
 	private final AnalyticsManager analyticsManager;
 
 	/**
 	 * Construct an instance of DaemonManagerImpl.
+	 * @param analyticsManager the analyticsManager
+	 * @param daemonLockPluginOpt optional plugin for the locks of the cluster-singleton daemons
+	 * @param maxWorkersOpt optional param for the max number of daemons running at the same time (the number of processors, at least 2, by default)
+	 * @param workerKeepAliveSecondsOpt optional param for the duration after which an idle worker thread is released (60s by default)
 	 */
 	@Inject
-	public DaemonManagerImpl(final AnalyticsManager analyticsManager) {
-		Assertion.check().isNotNull(analyticsManager);
+	public DaemonManagerImpl(
+			final AnalyticsManager analyticsManager,
+			final Optional<DaemonLockPlugin> daemonLockPluginOpt,
+			@ParamValue("maxWorkers") final Optional<Integer> maxWorkersOpt,
+			@ParamValue("workerKeepAliveSeconds") final Optional<Integer> workerKeepAliveSecondsOpt) {
+		Assertion.check()
+				.isNotNull(analyticsManager)
+				.isNotNull(daemonLockPluginOpt)
+				.isNotNull(maxWorkersOpt)
+				.isNotNull(workerKeepAliveSecondsOpt);
 		//---
 		this.analyticsManager = analyticsManager;
+		daemonExecutor = new DaemonExecutor(
+				daemonLockPluginOpt,
+				maxWorkersOpt.orElseGet(() -> Math.max(2, Runtime.getRuntime().availableProcessors())),
+				workerKeepAliveSecondsOpt.orElse(DEFAULT_WORKER_KEEP_ALIVE_SECONDS));
 		Node.getNode().registerPreActivateFunction(this::startAllDaemons);
 
 	}
@@ -84,26 +108,49 @@ public final class DaemonManagerImpl implements DaemonManager, Activeable, Simpl
 									"Method {0} on component {1} cannot have any parameter to be used as a daemon", method.getName(), component.getClass().getName());
 							//---
 							final DaemonScheduled daemonSchedule = method.getAnnotation(DaemonScheduled.class);
+							final MethodInvoker invoker = ClassUtil.getInvoker(method);
 							final Supplier<Daemon> daemonSupplier;
 							if (daemonSchedule.analytics()) {
 								// if analytics is enabled (by default) we trace the execution with a tracer
 								daemonSupplier = () -> () -> analyticsManager.trace(
 										"daemon",
 										daemonSchedule.name(),
-										tracer -> ClassUtil.invoke(component, method));
+										tracer -> invoker.invoke(component));
 							} else {
 								// otherwise we just execute it
-								daemonSupplier = () -> () -> ClassUtil.invoke(component, method);
+								daemonSupplier = () -> () -> invoker.invoke(component);
 							}
 							return new DaemonDefinition(
 									daemonSchedule.name(),
 									daemonSupplier,
-									daemonSchedule.periodInSeconds());
+									createSchedule(daemonSchedule),
+									daemonSchedule.timeoutInSeconds(),
+									daemonSchedule.clusterSingleton());
 						})
 				.collect(Collectors.toList());
 
 	}
 
+	private static DaemonSchedule createSchedule(final DaemonScheduled daemonScheduled) {
+		final boolean hasCron = !daemonScheduled.cron().isEmpty();
+		Assertion.check()
+				.isTrue(hasCron ^ daemonScheduled.periodInSeconds() > 0, "Daemon {0} must have either a period or a cron", daemonScheduled.name())
+				.isFalse(hasCron && daemonScheduled.fixedRate(), "Daemon {0} cannot have a fixed rate with a cron", daemonScheduled.name());
+		//---
+		final DaemonSchedule schedule;
+		if (hasCron) {
+			schedule = DaemonSchedule.ofCron(daemonScheduled.cron());
+		} else if (daemonScheduled.fixedRate()) {
+			schedule = DaemonSchedule.ofFixedRate(daemonScheduled.periodInSeconds());
+		} else {
+			schedule = DaemonSchedule.ofFixedDelay(daemonScheduled.periodInSeconds());
+		}
+		final DaemonSchedule delayedSchedule = daemonScheduled.initialDelayInSeconds() >= 0
+				? schedule.withInitialDelay(daemonScheduled.initialDelayInSeconds())
+				: schedule;
+		return delayedSchedule.withJitter(daemonScheduled.jitterInSeconds());
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public List<DaemonStat> getStats() {
@@ -144,6 +191,39 @@ public final class DaemonManagerImpl implements DaemonManager, Activeable, Simpl
 				.forEach(this::startDaemon);
 	}
 
+	/**
+	 * Provides the execution stats of each daemon as metrics.
+	 * Only the daemons that have already been triggered are measured.
+	 * @return the metrics
+	 */
+	@Metrics
+	public List<Metric> getDaemonsMetrics() {
+		final List<Metric> metrics = new ArrayList<>();
+		for (final DaemonStat daemonStat : getStats()) {
+			if (daemonStat.getCount() > 0 || daemonStat.getMissed() > 0 || daemonStat.getTimeouts() > 0 || daemonStat.getLockFailures() > 0) {
+				metrics.add(buildDaemonMetric(daemonStat, "executions", daemonStat.getCount()));
+				metrics.add(buildDaemonMetric(daemonStat, "failures", daemonStat.getFailures()));
+				metrics.add(buildDaemonMetric(daemonStat, "missed", daemonStat.getMissed()));
+				metrics.add(buildDaemonMetric(daemonStat, "timeouts", daemonStat.getTimeouts()));
+				metrics.add(buildDaemonMetric(daemonStat, "lockFailures", daemonStat.getLockFailures()));
+				metrics.add(buildDaemonMetric(daemonStat, "lastDurationMillis", daemonStat.getLastDurationMillis()));
+				metrics.add(buildDaemonMetric(daemonStat, "avgDurationMillis", daemonStat.getAvgDurationMillis()));
+				metrics.add(buildDaemonMetric(daemonStat, "maxDurationMillis", daemonStat.getMaxDurationMillis()));
+			}
+		}
+		return metrics;
+	}
+
+	private static Metric buildDaemonMetric(final DaemonStat daemonStat, final String name, final double value) {
+		return Metric.builder()
+				.withName(name)
+				.withFeature("daemons")
+				.withModule(daemonStat.getDaemonName())
+				.withValue(value)
+				.withSuccess()
+				.build();
+	}
+
 	@HealthChecked(name = "lastExecs", feature = "daemons")
 	public HealthMeasure checkDaemonsExecs() {
 		final List<DaemonStat> daemonStats = getStats();
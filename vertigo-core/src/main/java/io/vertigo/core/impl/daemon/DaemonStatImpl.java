@@ -32,6 +32,12 @@ final class DaemonStatImpl implements DaemonStat {
 	private final long sucesses;
 	private final long failures;
 	private final boolean lastExecSuccess;
+	private final long lastDurationMillis;
+	private final long totalDurationMillis;
+	private final long maxDurationMillis;
+	private final long missed;
+	private final long timeouts;
+	private final long lockFailures;
 
 	/**
 	 * Constructor.
@@ -40,13 +46,25 @@ final class DaemonStatImpl implements DaemonStat {
 	 * @param failures Nb failure
 	 * @param status Current status
 	 * @param lastExecSuccess if last exec was a success
+	 * @param lastDurationMillis Duration of the last exec
+	 * @param totalDurationMillis Duration of all the execs
+	 * @param maxDurationMillis Max duration of an exec
+	 * @param missed Nb skipped execs
+	 * @param timeouts Nb interrupted execs
+	 * @param lockFailures Nb failures of the cluster lock
 	 */
 	DaemonStatImpl(
 			final DaemonDefinition daemonDefinition,
 			final long successes,
 			final long failures,
 			final DaemonStat.Status status,
-			final boolean lastExecSuccess) {
+			final boolean lastExecSuccess,
+			final long lastDurationMillis,
+			final long totalDurationMillis,
+			final long maxDurationMillis,
+			final long missed,
+			final long timeouts,
+			final long lockFailures) {
 		Assertion.check()
 				.isNotNull(daemonDefinition)
 				.isNotNull(status);
@@ -56,6 +74,12 @@ final class DaemonStatImpl implements DaemonStat {
 		sucesses = successes;
 		this.status = status;
 		this.lastExecSuccess = lastExecSuccess;
+		this.lastDurationMillis = lastDurationMillis;
+		this.totalDurationMillis = totalDurationMillis;
+		this.maxDurationMillis = maxDurationMillis;
+		this.missed = missed;
+		this.timeouts = timeouts;
+		this.lockFailures = lockFailures;
 	}
 
 	/** {@inheritDoc} */
@@ -100,4 +124,41 @@ final class DaemonStatImpl implements DaemonStat {
 		return status;
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public long getLastDurationMillis() {
+		return lastDurationMillis;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public double getAvgDurationMillis() {
+		final long count = getCount();
+		return count == 0 ? 0 : (double) totalDurationMillis / count;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getMaxDurationMillis() {
+		return maxDurationMillis;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getMissed() {
+		return missed;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getTimeouts() {
+		return timeouts;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getLockFailures() {
+		return lockFailures;
+	}
+
 }
@@ -17,10 +17,11 @@
  */
 package io.vertigo.core.impl.daemon;
 
-import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
 
 import io.vertigo.core.daemon.Daemon;
 import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.ResettableThreadLocal;
 
 /**
  * @author mlaroche, pchretien, npiedeloup
@@ -41,26 +42,22 @@ final class DaemonTimerTask implements Runnable {
 	/** {@inheritDoc} */
 	@Override
 	public void run() {
+		final long start = System.nanoTime();
 		try {//try catch needed to ensure execution aren't suppressed
 			daemonListener.onStart();
 			//---
 			daemon.run();
 			//---
-			daemonListener.onSuccess();
+			daemonListener.onSuccess(elapsedMillis(start));
 		} catch (final Exception e) {
-			daemonListener.onFailure(e);
+			daemonListener.onFailure(e, elapsedMillis(start));
 		} finally {
-			clearAllThreadLocals();
+			//the workers are pooled : the state bound to this run must not leak to the next runs
+			ResettableThreadLocal.resetAll();
 		}
 	}
 
-	private static void clearAllThreadLocals() {
-		try {
-			final Field threadLocals = Thread.class.getDeclaredField("threadLocals");
-			threadLocals.setAccessible(true);
-			threadLocals.set(Thread.currentThread(), null);
-		} catch (final Exception e) {
-			throw new AssertionError(e);
-		}
+	private static long elapsedMillis(final long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
 	}
 }
@@ -0,0 +1,341 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.daemon;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertigo.core.daemon.definitions.DaemonDefinition;
+import io.vertigo.core.daemon.definitions.DaemonSchedule;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * The schedule of a daemon.
+ * The timer only triggers the runs, which are executed by the workers.
+ * A daemon has at most one run at a time :
+ * - with a fixed delay, the next run is scheduled when the current one ends;
+ * - with a fixed rate or a cron, the runs are scheduled by the timer and a run is skipped while the previous one is still running.
+ * A run exceeding the timeout of the daemon is interrupted.
+ * A cluster-singleton daemon is run only if this node holds its lock ;
+ * the lease of the lock is renewed (outside the timer thread) while the run is in progress
+ * and the lock is kept until the end of the period slot of the run, so that the other nodes skip the same run.
+ * The slots are aligned on the epoch (or on the cron times), so they are the same on all the nodes whatever their start time :
+ * a daemon is run at most once per slot in the cluster.
+ *
+ * @author mlaroche, pchretien, npiedeloup
+ */
+final class ScheduledDaemon {
+	private static final long MIN_LEASE_MILLIS = 3000;
+
+	private final String daemonName;
+	private final DaemonSchedule schedule;
+	private final int timeoutInSeconds;
+	private final DaemonListener daemonListener;
+	private final DaemonTimerTask timerTask;
+	private final Optional<DaemonLockPlugin> daemonLockPluginOpt;
+	private final ScheduledExecutorService timer;
+	private final ScheduledExecutorService leaseRenewer;
+	private final Executor workers;
+	private final AtomicBoolean running = new AtomicBoolean();
+	//the nominal time of the next run, without jitter (fixed rate and cron only, accessed by the timer thread)
+	private long nextRunMillis;
+
+	ScheduledDaemon(
+			final DaemonDefinition daemonDefinition,
+			final DaemonListener daemonListener,
+			final DaemonTimerTask timerTask,
+			final Optional<DaemonLockPlugin> daemonLockPluginOpt,
+			final ScheduledExecutorService timer,
+			final ScheduledExecutorService leaseRenewer,
+			final Executor workers) {
+		Assertion.check()
+				.isNotNull(daemonDefinition)
+				.isNotNull(daemonListener)
+				.isNotNull(timerTask)
+				.isNotNull(daemonLockPluginOpt)
+				.isNotNull(timer)
+				.isNotNull(leaseRenewer)
+				.isNotNull(workers);
+		//---
+		daemonName = daemonDefinition.getName();
+		schedule = daemonDefinition.getSchedule();
+		timeoutInSeconds = daemonDefinition.getTimeoutInSeconds();
+		this.daemonListener = daemonListener;
+		this.timerTask = timerTask;
+		this.daemonLockPluginOpt = daemonLockPluginOpt;
+		this.timer = timer;
+		this.leaseRenewer = leaseRenewer;
+		this.workers = workers;
+	}
+
+	/**
+	 * Schedules the first run.
+	 */
+	void start() {
+		final long now = System.currentTimeMillis();
+		final long initialDelayMillis = TimeUnit.SECONDS.toMillis(schedule.getInitialDelayInSeconds());
+		switch (schedule.getMode()) {
+			case fixedDelay:
+				schedule(this::dispatchThenDelay, initialDelayMillis);
+				break;
+			case fixedRate:
+				nextRunMillis = now + initialDelayMillis;
+				schedule(this::tick, initialDelayMillis);
+				break;
+			case cron:
+				nextRunMillis = schedule.nextCronExecution(Instant.ofEpochMilli(now + initialDelayMillis)).toEpochMilli();
+				schedule(this::tick, nextRunMillis - now);
+				break;
+			default:
+				throw new IllegalStateException("unsupported schedule " + schedule);
+		}
+	}
+
+	private void schedule(final Runnable command, final long delayMillis) {
+		final int jitterInSeconds = schedule.getJitterInSeconds();
+		final long jitterMillis = jitterInSeconds > 0
+				? ThreadLocalRandom.current().nextLong(TimeUnit.SECONDS.toMillis(jitterInSeconds) + 1)
+				: 0;
+		try {
+			timer.schedule(command, Math.max(0, delayMillis) + jitterMillis, TimeUnit.MILLISECONDS);
+		} catch (final RejectedExecutionException e) {
+			//the executor is stopping : the daemon is not scheduled anymore
+		}
+	}
+
+	/**
+	 * Runs the task, interrupted if it exceeds the timeout.
+	 * The timeout starts with the run, not when the run is queued,
+	 * and the worker is interrupted only while the run is in progress : the interruption never hits what follows the run.
+	 */
+	private void runTaskWithTimeout() {
+		if (timeoutInSeconds == 0) {
+			timerTask.run();
+			return;
+		}
+		final RunTimeout runTimeout = new RunTimeout(Thread.currentThread());
+		final ScheduledFuture<?> timeout;
+		try {
+			timeout = timer.schedule(runTimeout::expire, timeoutInSeconds, TimeUnit.SECONDS);
+		} catch (final RejectedExecutionException e) {
+			//the executor is stopping
+			timerTask.run();
+			return;
+		}
+		try {
+			timerTask.run();
+		} finally {
+			runTimeout.end();
+			timeout.cancel(false);
+		}
+	}
+
+	private final class RunTimeout {
+		private static final int RUNNING = 0;
+		private static final int INTERRUPTING = 1;
+		private static final int INTERRUPTED = 2;
+		private static final int ENDED = 3;
+
+		private final Thread worker;
+		private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+		RunTimeout(final Thread worker) {
+			this.worker = worker;
+		}
+
+		//called by the timer
+		void expire() {
+			if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+				daemonListener.onTimeout();
+				worker.interrupt();
+				state.set(INTERRUPTED);
+			}
+			//else the run has already ended in time
+		}
+
+		//called by the worker when the run ends
+		void end() {
+			if (!state.compareAndSet(RUNNING, ENDED)) {
+				//the timeout has expired : we wait for the interruption to be delivered, then we clear it
+				while (state.get() == INTERRUPTING) {
+					Thread.onSpinWait();
+				}
+				Thread.interrupted();
+			}
+		}
+	}
+
+	/**
+	 * Runs the task.
+	 * @param nominalRunMillis the time at which the run was due (without jitter) : the slot of the run
+	 */
+	private void runTask(final long nominalRunMillis) {
+		if (daemonLockPluginOpt.isEmpty()) {
+			runTaskWithTimeout();
+			return;
+		}
+		final DaemonLockPlugin daemonLockPlugin = daemonLockPluginOpt.get();
+		final long slotEndMillis = getSlotEndMillis(nominalRunMillis);
+		//the lease is renewed while the run is in progress, so it's never shorter than the run
+		final long leaseMillis = Math.max(slotEndMillis - System.currentTimeMillis(), MIN_LEASE_MILLIS);
+		final boolean locked;
+		try {
+			locked = daemonLockPlugin.tryLock(daemonName, leaseMillis);
+		} catch (final RuntimeException e) {
+			daemonListener.onLockFailure(e);
+			return;
+		}
+		if (!locked) {
+			daemonListener.onLockedElsewhere();
+			return;
+		}
+		final LeaseRenewal leaseRenewal = new LeaseRenewal(daemonLockPlugin, leaseMillis);
+		try {
+			runTaskWithTimeout();
+		} finally {
+			leaseRenewal.end();
+			try {
+				//the other nodes must skip this slot
+				daemonLockPlugin.unlock(daemonName, slotEndMillis);
+			} catch (final RuntimeException e) {
+				daemonListener.onLockFailure(e);
+			}
+		}
+	}
+
+	private final class LeaseRenewal {
+		private final DaemonLockPlugin daemonLockPlugin;
+		private final long leaseMillis;
+		private final ScheduledFuture<?> renewals;
+		//guarded by this : a renewal never happens after the end of the run
+		private boolean ended;
+
+		LeaseRenewal(final DaemonLockPlugin daemonLockPlugin, final long leaseMillis) {
+			this.daemonLockPlugin = daemonLockPlugin;
+			this.leaseMillis = leaseMillis;
+			final long renewalPeriodMillis = leaseMillis / 3;
+			ScheduledFuture<?> myRenewals;
+			try {
+				//the lock may be slow (IO, network) : it must not delay the timer
+				myRenewals = leaseRenewer.scheduleAtFixedRate(this::renew, renewalPeriodMillis, renewalPeriodMillis, TimeUnit.MILLISECONDS);
+			} catch (final RejectedExecutionException e) {
+				//the executor is stopping
+				myRenewals = null;
+			}
+			renewals = myRenewals;
+		}
+
+		//called by the lease renewer
+		private synchronized void renew() {
+			if (ended) {
+				return;
+			}
+			try {
+				if (!daemonLockPlugin.renew(daemonName, leaseMillis)) {
+					daemonListener.onLockLost();
+				}
+			} catch (final RuntimeException e) {
+				daemonListener.onLockFailure(e);
+			}
+		}
+
+		//called by the worker when the run ends
+		synchronized void end() {
+			ended = true;
+			if (renewals != null) {
+				renewals.cancel(false);
+			}
+		}
+	}
+
+	private long getSlotEndMillis(final long nominalRunMillis) {
+		if (schedule.getMode() == DaemonSchedule.Mode.cron) {
+			return schedule.nextCronExecution(Instant.ofEpochMilli(nominalRunMillis)).toEpochMilli();
+		}
+		final long periodMillis = TimeUnit.SECONDS.toMillis(schedule.getPeriodInSeconds());
+		return (Math.floorDiv(nominalRunMillis, periodMillis) + 1) * periodMillis;
+	}
+
+	//-----fixed delay
+	private void dispatchThenDelay() {
+		try {
+			workers.execute(this::runThenDelay);
+		} catch (final RejectedExecutionException e) {
+			//the executor is stopping
+		}
+	}
+
+	private void runThenDelay() {
+		try {
+			//two runs of this node are at least one period apart : they are never in the same slot
+			runTask(System.currentTimeMillis());
+		} finally {
+			schedule(this::dispatchThenDelay, TimeUnit.SECONDS.toMillis(schedule.getPeriodInSeconds()));
+		}
+	}
+
+	//-----fixed rate and cron
+	private void tick() {
+		if (running.compareAndSet(false, true)) {
+			final long nominalRunMillis = nextRunMillis;
+			try {
+				workers.execute(() -> runOnce(nominalRunMillis));
+			} catch (final RejectedExecutionException e) {
+				//the executor is stopping
+				running.set(false);
+				return;
+			}
+		} else {
+			//the previous run is still running : this run is skipped
+			daemonListener.onMissed();
+		}
+		scheduleNextTick();
+	}
+
+	private void runOnce(final long nominalRunMillis) {
+		try {
+			runTask(nominalRunMillis);
+		} finally {
+			running.set(false);
+		}
+	}
+
+	private void scheduleNextTick() {
+		final long now = System.currentTimeMillis();
+		if (schedule.getMode() == DaemonSchedule.Mode.fixedRate) {
+			final long periodMillis = TimeUnit.SECONDS.toMillis(schedule.getPeriodInSeconds());
+			nextRunMillis += periodMillis;
+			//the runs already late are skipped, the rate is kept
+			while (nextRunMillis <= now) {
+				nextRunMillis += periodMillis;
+				daemonListener.onMissed();
+			}
+		} else {
+			nextRunMillis = schedule.nextCronExecution(Instant.ofEpochMilli(Math.max(now, nextRunMillis))).toEpochMilli();
+		}
+		schedule(this::tick, nextRunMillis - now);
+	}
+}
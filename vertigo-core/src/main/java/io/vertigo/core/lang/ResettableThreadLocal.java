@@ -0,0 +1,70 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.lang;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A thread local whose value is bound to a unit of work (a daemon run, a request...) rather than to a thread.
+ * All the resettable thread locals are registered, so that a pooled thread can reset them between two units of work.
+ * The plain thread locals are kept : they can be used as per-thread caches.
+ *
+ * @param <T> the type of the value
+ * @author npiedeloup
+ */
+public final class ResettableThreadLocal<T> extends ThreadLocal<T> {
+	//weak keys : a thread local no longer used is not retained by the registry
+	private static final Set<ResettableThreadLocal<?>> REGISTRY = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	private final Supplier<? extends T> initialValueSupplier;
+
+	private ResettableThreadLocal(final Supplier<? extends T> initialValueSupplier) {
+		Assertion.check().isNotNull(initialValueSupplier);
+		//---
+		this.initialValueSupplier = initialValueSupplier;
+		REGISTRY.add(this);
+	}
+
+	/**
+	 * Creates a registered thread local.
+	 * @param <T> the type of the value
+	 * @param initialValueSupplier the supplier of the initial value of each thread
+	 * @return the thread local
+	 */
+	public static <T> ResettableThreadLocal<T> withInitial(final Supplier<? extends T> initialValueSupplier) {
+		return new ResettableThreadLocal<>(initialValueSupplier);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected T initialValue() {
+		return initialValueSupplier.get();
+	}
+
+	/**
+	 * Removes the values of all the resettable thread locals for the current thread.
+	 */
+	public static void resetAll() {
+		synchronized (REGISTRY) {
+			REGISTRY.forEach(ThreadLocal::remove);
+		}
+	}
+}
@@ -18,6 +18,7 @@
 package io.vertigo.core.node.component.aop;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 
 /**
  * Aspect.
@@ -40,6 +41,15 @@ public interface Aspect {
 	 */
 	Object invoke(final Object[] args, final AspectMethodInvocation methodInvocation);
 
+	/**
+	 * Called once, when the components are wired, for each method intercepted by this aspect.
+	 * Allows the aspect to resolve once what it needs for this method instead of doing it on each call.
+	 * @param method the intercepted method
+	 */
+	default void prepare(final Method method) {
+		//nothing by default
+	}
+
 	/**
 	 * returns Annotation that tagged any method or class concerned by this aspect
 	 * @return Annotation type.
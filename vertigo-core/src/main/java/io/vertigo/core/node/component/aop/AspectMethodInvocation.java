@@ -18,6 +18,10 @@
 package io.vertigo.core.node.component.aop;
 
 import java.lang.reflect.Method;
+import java.util.List;
+import java.util.function.Function;
+
+import io.vertigo.core.lang.Assertion;
 
 /**
  * This class allows you to define the behavior of an aspect on a specific method.
@@ -26,6 +30,9 @@ import java.lang.reflect.Method;
  * You can catch some exceptions and log them...
  * You can ever change the result of a method.
  *
+ * The chains built by the AopPlugins are pre-linked and immutable : an invocation may be proceeded many times,
+ * from any thread, and a call allocates nothing.
+ *
  * @author pchretien
  */
 public interface AspectMethodInvocation {
@@ -40,4 +47,26 @@ public interface AspectMethodInvocation {
 	 * @return the result of the method.
 	 */
 	Object proceed(Object[] args);
+
+	/**
+	 * Links once the aspects of a method.
+	 * Each link knows its successor, the last one calls the target.
+	 *
+	 * @param method the method
+	 * @param aspects the aspects in their order of execution
+	 * @param target the call of the method when all the aspects have been applied
+	 * @return the first link of the chain
+	 */
+	static AspectMethodInvocation chain(final Method method, final List<Aspect> aspects, final Function<Object[], Object> target) {
+		Assertion.check()
+				.isNotNull(method)
+				.isNotNull(aspects)
+				.isNotNull(target);
+		//-----
+		AspectMethodInvocation invocation = new LinkedAspectMethodInvocation(method, null, null, target);
+		for (int i = aspects.size() - 1; i >= 0; i--) {
+			invocation = new LinkedAspectMethodInvocation(method, aspects.get(i), invocation, null);
+		}
+		return invocation;
+	}
 }
@@ -0,0 +1,62 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.node.component.aop;
+
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+/**
+ * A link of a pre-linked aspect chain.
+ * Each link holds an aspect and its successor, the last one holds the target.
+ * The links are immutable : they are shared by all the calls of the method.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class LinkedAspectMethodInvocation implements AspectMethodInvocation {
+	private final Method method;
+	//--- an aspect and the next link or the target (end of the chain)
+	private final Aspect aspect;
+	private final AspectMethodInvocation next;
+	private final Function<Object[], Object> target;
+
+	LinkedAspectMethodInvocation(
+			final Method method,
+			final Aspect aspect,
+			final AspectMethodInvocation next,
+			final Function<Object[], Object> target) {
+		this.method = method;
+		this.aspect = aspect;
+		this.next = next;
+		this.target = target;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object proceed(final Object[] args) {
+		if (aspect == null) {
+			return target.apply(args);
+		}
+		return aspect.invoke(args, next);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Method getMethod() {
+		return method;
+	}
+}
@@ -34,6 +34,7 @@ import io.vertigo.core.node.component.amplifier.ProxyMethod;
 import io.vertigo.core.node.component.amplifier.ProxyMethodAnnotation;
 import io.vertigo.core.node.component.aop.Aspect;
 import io.vertigo.core.node.component.aop.AspectMethodInvocation;
+import io.vertigo.core.util.ClassUtil;
 
 final class AmplifierFactory {
 
@@ -58,21 +59,25 @@ final class AmplifierFactory {
 				handler);
 	}
 
+	/*
+	 * Each method of the interface is resolved once, when the amplifier is created, into a pre-linked chain : its aspects then its proxyMethod.
+	 */
 	private static final class MyInvocationHandler implements InvocationHandler {
-		private final Map<Method, ProxyMethod> proxyMethodsByMethod;
-		private final Map<Method, List<Aspect>> aspectsByMethod;
+		private final Class<? extends CoreComponent> intf;
+		private final Map<Method, AspectMethodInvocation> chainsByMethod;
 
 		MyInvocationHandler(
 				final Class<? extends CoreComponent> intf,
 				final List<ProxyMethod> proxyMethods,
 				final Map<Method, List<Aspect>> aspectsByMethod) {
 			Assertion.check()
-					.isNotNull(proxyMethods);
+					.isNotNull(proxyMethods)
+					.isNotNull(aspectsByMethod);
 			//---
-			proxyMethodsByMethod = Arrays.stream(intf.getDeclaredMethods())
+			this.intf = intf;
+			chainsByMethod = Map.copyOf(Arrays.stream(intf.getDeclaredMethods())
 					.collect(Collectors.toMap(Function.identity(),
-							method -> findProxyMethod(method, proxyMethods)));
-			this.aspectsByMethod = aspectsByMethod;
+							method -> createChain(method, aspectsByMethod.getOrDefault(method, Collections.emptyList()), findProxyMethod(method, proxyMethods)))));
 		}
 
 		@Override
@@ -80,15 +85,39 @@ final class AmplifierFactory {
 				final Object instance,
 				final Method method,
 				final Object[] args) throws Throwable {
-			Assertion.check()
-					.isNotNull(instance)
-					.isNotNull(method);
-			//---
-			return new MyMethodInvocation(method,
-					aspectsByMethod.getOrDefault(method, Collections.emptyList()),
-					proxyMethodsByMethod.get(method))
-							.proceed(args);
+			final AspectMethodInvocation chain = chainsByMethod.get(method);
+			if (chain == null) {
+				Assertion.check().isTrue(Object.class.equals(method.getDeclaringClass()), "No way to find a proxy method for : {0}", method);
+				//equals, hashCode and toString are answered by the handler
+				return ClassUtil.getProxyInvoker(method).invoke(this, args);
+			}
+			return chain.proceed(args);
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			//called with the other proxy
+			return other != null
+					&& java.lang.reflect.Proxy.isProxyClass(other.getClass())
+					&& java.lang.reflect.Proxy.getInvocationHandler(other) == this;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this);
 		}
+
+		@Override
+		public String toString() {
+			return "amplifier of " + intf.getName();
+		}
+	}
+
+	private static AspectMethodInvocation createChain(
+			final Method method,
+			final List<Aspect> aspects,
+			final ProxyMethod proxyMethod) {
+		return AspectMethodInvocation.chain(method, aspects, args -> proxyMethod.invoke(method, args));
 	}
 
 	private static ProxyMethod findProxyMethod(
@@ -105,39 +134,4 @@ final class AmplifierFactory {
 				.findFirst()
 				.orElseThrow(() -> new IllegalStateException("No way to find a proxy annotation on method : " + method));
 	}
-
-	private static final class MyMethodInvocation implements AspectMethodInvocation {
-		private final List<Aspect> aspects;
-		private final Method method;
-		private int index;
-		private final ProxyMethod proxyMethod;
-
-		private MyMethodInvocation(
-				final Method method,
-				final List<Aspect> aspects,
-				final ProxyMethod proxyMethod) {
-			Assertion.check()
-					.isNotNull(method)
-					.isNotNull(aspects)
-					.isNotNull(proxyMethod);
-			//-----
-			this.method = method;
-			this.aspects = aspects;
-			this.proxyMethod = proxyMethod;
-		}
-
-		/** {@inheritDoc} */
-		@Override
-		public Object proceed(final Object[] args) {
-			if (index < aspects.size()) {
-				return aspects.get(index++).invoke(args, this);
-			}
-			return proxyMethod.invoke(method, args);
-		}
-
-		@Override
-		public Method getMethod() {
-			return method;
-		}
-	}
 }
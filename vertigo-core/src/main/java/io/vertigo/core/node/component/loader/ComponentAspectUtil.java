@@ -69,6 +69,10 @@ final class ComponentAspectUtil {
 		//2 - Annotated methods
 		final Map<Method, List<Aspect>> joinPoints = new HashMap<>();
 		for (final Method method : implClass.getMethods()) {
+			if (method.isBridge() || method.isSynthetic()) {
+				//a bridge calls the method it bridges to, which holds the aspects
+				continue;
+			}
 			final List<Aspect> methodBasedInterceptors = Stream.of(method.getAnnotations())
 					//we consider all methods annotated with AspectAnnotation
 					.filter(annotation -> annotation.annotationType().isAnnotationPresent(AspectAnnotation.class))
@@ -84,6 +88,7 @@ final class ComponentAspectUtil {
 			if (!methodBasedInterceptors.isEmpty()) {
 				//there is at least on aspect on this method
 				joinPoints.put(method, methodBasedInterceptors);
+				methodBasedInterceptors.forEach(aspect -> aspect.prepare(method));
 			}
 		}
 		return joinPoints;
@@ -38,9 +38,11 @@ import io.vertigo.core.node.component.Component;
 import io.vertigo.core.node.component.Plugin;
 import io.vertigo.core.param.Param;
 import io.vertigo.core.param.ParamManager;
+import io.vertigo.core.plugins.analytics.aggregator.AggregatorAnalyticsConnectorPlugin;
 import io.vertigo.core.plugins.analytics.log.SmartLoggerAnalyticsConnectorPlugin;
 import io.vertigo.core.plugins.analytics.log.SocketLoggerAnalyticsConnectorPlugin;
 import io.vertigo.core.plugins.component.aop.javassist.JavassistAopPlugin;
+import io.vertigo.core.plugins.daemon.lock.FileDaemonLockPlugin;
 import io.vertigo.core.resource.ResourceManager;
 
 /**
@@ -54,6 +56,8 @@ public final class BootConfigBuilder implements Builder<BootConfig> {
 	private AopPlugin myAopPlugin = new JavassistAopPlugin(); //By default
 	private final List<ComponentConfig> myComponentConfigs = new ArrayList<>();
 	private final List<PluginConfig> myPluginConfigs = new ArrayList<>();
+	private Param[] myAnalyticsParams = new Param[0];
+	private Param[] myDaemonsParams = new Param[0];
 
 	/**
 	 * @param nodeConfigBuilder Parent NodeConfig builder
@@ -128,6 +132,40 @@ public final class BootConfigBuilder implements Builder<BootConfig> {
 		return this;
 	}
 
+	/**
+	 * Configures the analytics manager.
+	 * @param params the params of the analytics manager
+	 * @return this builder
+	 */
+	@Feature("analytics")
+	public BootConfigBuilder withAnalytics(final Param... params) {
+		Assertion.check()
+				.isNotNull(params);
+		//-----
+		myAnalyticsParams = params;
+		return this;
+	}
+
+	/**
+	 * Configures the daemon manager.
+	 * @param params the params of the daemon manager
+	 * @return this builder
+	 */
+	@Feature("daemons")
+	public BootConfigBuilder withDaemons(final Param... params) {
+		Assertion.check()
+				.isNotNull(params);
+		//-----
+		myDaemonsParams = params;
+		return this;
+	}
+
+	@Feature("daemons.fileLock")
+	public BootConfigBuilder withFileDaemonLock(final Param... params) {
+		addPlugin(FileDaemonLockPlugin.class, params);
+		return this;
+	}
+
 	@Feature("analytics.socketLoggerConnector")
 	public BootConfigBuilder withSocketLoggerAnalyticsConnector(final Param... params) {
 		addPlugin(SocketLoggerAnalyticsConnectorPlugin.class, params);
@@ -142,6 +180,13 @@ public final class BootConfigBuilder implements Builder<BootConfig> {
 
 	}
 
+	@Feature("analytics.aggregatorConnector")
+	public BootConfigBuilder withAggregatorAnalyticsConnector(final Param... params) {
+		addPlugin(AggregatorAnalyticsConnectorPlugin.class, params);
+		return this;
+
+	}
+
 	/**
 	 * Adds a AnalyticsConnectorPlugin
 	 * @param analyticsConnectorPluginClass the plugin to use
@@ -195,8 +240,8 @@ public final class BootConfigBuilder implements Builder<BootConfig> {
 	public BootConfig build() {
 		addComponent(ResourceManager.class, ResourceManagerImpl.class)
 				.addComponent(ParamManager.class, ParamManagerImpl.class)
-				.addComponent(DaemonManager.class, DaemonManagerImpl.class)
-				.addComponent(AnalyticsManager.class, AnalyticsManagerImpl.class);
+				.addComponent(DaemonManager.class, DaemonManagerImpl.class, myDaemonsParams)
+				.addComponent(AnalyticsManager.class, AnalyticsManagerImpl.class, myAnalyticsParams);
 
 		return new BootConfig(
 				myLogConfigOpt,
@@ -0,0 +1,167 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.aggregator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+
+import io.vertigo.core.analytics.health.HealthCheck;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
+import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.impl.analytics.AnalyticsConnectorPlugin;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.param.ParamValue;
+import io.vertigo.core.plugins.analytics.aggregator.ProcessAggregate.ProcessStats;
+
+/**
+ * This connector aggregates the processes in memory instead of sending them.
+ * Each process (and each of its sub processes) is aggregated by (category, name) over a rolling window :
+ *  - count
+ *  - error rate
+ *  - duration percentiles (p50, p95, p99) and max
+ *  - sum of each measure
+ * These stats are provided as metrics.
+ * The (category, name) that have no process in their two windows are evicted when the metrics are provided.
+ * The number of (category, name) is bounded : once it's reached, the processes of a new name are aggregated under the name '*' of their category.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class AggregatorAnalyticsConnectorPlugin implements AnalyticsConnectorPlugin {
+	private static final String KEY_SEPARATOR = "\u0000";
+	private static final String OVERFLOW_NAME = "*";
+
+	private final long windowMillis;
+	private final int maxAggregates;
+	private final Map<String, ProcessAggregate> aggregates = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param windowSecondsOpt optional param for the duration of a window (60s by default), stats cover the current and the previous windows
+	 * @param maxAggregatesOpt optional param for the max number of (category, name) aggregated separately (1000 by default)
+	 */
+	@Inject
+	public AggregatorAnalyticsConnectorPlugin(
+			@ParamValue("windowSeconds") final Optional<Integer> windowSecondsOpt,
+			@ParamValue("maxAggregates") final Optional<Integer> maxAggregatesOpt) {
+		Assertion.check()
+				.isNotNull(windowSecondsOpt)
+				.isNotNull(maxAggregatesOpt);
+		//---
+		windowMillis = windowSecondsOpt.orElse(60) * 1000L;
+		maxAggregates = maxAggregatesOpt.orElse(1000);
+		Assertion.check()
+				.isTrue(windowMillis > 0, "the window must be > 0")
+				.isTrue(maxAggregates > 0, "the max number of aggregates {0} must be > 0", maxAggregates);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(final AProcess process) {
+		Assertion.check().isNotNull(process);
+		//---
+		aggregate(process, System.currentTimeMillis());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(final List<AProcess> processes) {
+		final long nowMillis = System.currentTimeMillis();
+		for (final AProcess process : processes) {
+			aggregate(process, nowMillis);
+		}
+	}
+
+	private void aggregate(final AProcess process, final long nowMillis) {
+		getAggregate(process.getCategory(), process.getName(), nowMillis)
+				.add(process, nowMillis);
+		for (final AProcess subProcess : process.getSubProcesses()) {
+			aggregate(subProcess, nowMillis);
+		}
+	}
+
+	private ProcessAggregate getAggregate(final String category, final String name, final long nowMillis) {
+		final ProcessAggregate aggregate = aggregates.get(category + KEY_SEPARATOR + name);
+		if (aggregate != null) {
+			//most of the time the aggregate already exists
+			return aggregate;
+		}
+		//the size is checked without lock : the bound may be slightly exceeded by concurrent threads
+		final String aggregateName = aggregates.size() < maxAggregates ? name : OVERFLOW_NAME;
+		return aggregates.computeIfAbsent(
+				category + KEY_SEPARATOR + aggregateName,
+				key -> new ProcessAggregate(category, aggregateName, windowMillis, nowMillis));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(final Metric metric) {
+		//nothing
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void add(final HealthCheck healthCheck) {
+		//nothing
+	}
+
+	/**
+	 * Provides the aggregated stats of each (category, name) as metrics.
+	 * The feature of a metric is the category and its module is the name of the process.
+	 * The idle aggregates are evicted (a process added at the very same time to an evicted aggregate may be missed).
+	 * @return the metrics
+	 */
+	@Metrics
+	public List<Metric> getAggregatedMetrics() {
+		final long nowMillis = System.currentTimeMillis();
+		final List<Metric> metrics = new ArrayList<>();
+		for (final Map.Entry<String, ProcessAggregate> entry : aggregates.entrySet()) {
+			final ProcessAggregate aggregate = entry.getValue();
+			final ProcessStats stats = aggregate.getStats(nowMillis);
+			if (stats.count == 0) {
+				//no process during the two windows : the aggregate is evicted
+				aggregates.remove(entry.getKey(), aggregate);
+			} else {
+				metrics.add(buildMetric(aggregate, "count", stats.count));
+				metrics.add(buildMetric(aggregate, "errorRate", stats.errorRate));
+				//durations are aggregated in microseconds so that fast processes are not reported as 0ms
+				metrics.add(buildMetric(aggregate, "p50Millis", stats.p50 / 1000d));
+				metrics.add(buildMetric(aggregate, "p95Millis", stats.p95 / 1000d));
+				metrics.add(buildMetric(aggregate, "p99Millis", stats.p99 / 1000d));
+				metrics.add(buildMetric(aggregate, "maxMillis", stats.max / 1000d));
+				stats.measureSums.forEach((measureName, sum) -> metrics.add(buildMetric(aggregate, measureName + "Sum", sum)));
+			}
+		}
+		return metrics;
+	}
+
+	private static Metric buildMetric(final ProcessAggregate aggregate, final String name, final double value) {
+		return Metric.builder()
+				.withName(name)
+				.withFeature(aggregate.getCategory())
+				.withModule(aggregate.getName())
+				.withValue(value)
+				.withSuccess()
+				.build();
+	}
+}
@@ -0,0 +1,123 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.aggregator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Histogram of durations with a bounded relative error (in the spirit of HdrHistogram).
+ *
+ * Buckets are linear for small values then log-linear : each power of two is split into 16 sub buckets,
+ * so a value is known with a precision of about 6% whatever its magnitude.
+ * Recording is lock-free : it only increments a counter of an atomic array.
+ * The range is bounded to a realistic latency (1 hour in microseconds) so that the histogram stays small :
+ * longer values are counted in the last bucket, the max value is still exact.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+	private static final long MAX_TRACKABLE_VALUE = TimeUnit.HOURS.toMicros(1);
+	private static final int BUCKET_COUNT = indexOf(MAX_TRACKABLE_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+	/**
+	 * Records a value.
+	 * @param value the value (a negative value is recorded as 0)
+	 */
+	void record(final long value) {
+		record(value, 1);
+	}
+
+	void record(final long value, final long count) {
+		final long positiveValue = Math.max(0, value);
+		counts.addAndGet(indexOf(Math.min(positiveValue, MAX_TRACKABLE_VALUE)), count);
+		max.accumulate(positiveValue);
+	}
+
+	/**
+	 * @return the max recorded value
+	 */
+	long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Adds the counts of this histogram to an array of counts.
+	 * @param totalCounts the counts by bucket
+	 */
+	void addCountsTo(final long[] totalCounts) {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			totalCounts[i] += counts.get(i);
+		}
+	}
+
+	/**
+	 * @return a new array able to store the counts by bucket
+	 */
+	static long[] newCounts() {
+		return new long[BUCKET_COUNT];
+	}
+
+	/**
+	 * Computes a percentile from counts.
+	 * @param totalCounts the counts by bucket
+	 * @param totalCount the sum of the counts
+	 * @param percentile the percentile (between 0 and 100)
+	 * @param maxValue the max recorded value
+	 * @return the highest value of the bucket that contains the percentile
+	 */
+	static long getValueAtPercentile(final long[] totalCounts, final long totalCount, final double percentile, final long maxValue) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			count += totalCounts[i];
+			if (count >= rank) {
+				//the last bucket also holds the values over the range
+				return i == BUCKET_COUNT - 1 ? maxValue : Math.min(highestValueOf(i), maxValue);
+			}
+		}
+		return maxValue;
+	}
+
+	static int indexOf(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+	}
+
+	static long highestValueOf(final int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+		final long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
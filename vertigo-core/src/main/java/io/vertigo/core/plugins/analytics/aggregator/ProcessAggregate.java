@@ -0,0 +1,141 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.aggregator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Aggregates the processes of a (category, name) over a rolling window.
+ * The last two windows are kept : the current one and the previous one.
+ * Stats are computed on both so that they always cover at least one full window.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class ProcessAggregate {
+	private final String category;
+	private final String name;
+	private final long windowMillis;
+
+	private volatile ProcessWindow current;
+	private volatile ProcessWindow previous;
+
+	ProcessAggregate(final String category, final String name, final long windowMillis, final long nowMillis) {
+		Assertion.check()
+				.isNotBlank(category)
+				.isNotBlank(name)
+				.isTrue(windowMillis > 0, "the window must be > 0");
+		//---
+		this.category = category;
+		this.name = name;
+		this.windowMillis = windowMillis;
+		current = new ProcessWindow(nowMillis / windowMillis);
+	}
+
+	String getCategory() {
+		return category;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	void add(final AProcess process, final long nowMillis) {
+		getWindow(nowMillis).add(process);
+	}
+
+	private ProcessWindow getWindow(final long nowMillis) {
+		final long epoch = nowMillis / windowMillis;
+		final ProcessWindow window = current;
+		if (window.getEpoch() == epoch) {
+			//most of the time there is nothing to rotate and no lock
+			return window;
+		}
+		return rotate(epoch);
+	}
+
+	private synchronized ProcessWindow rotate(final long epoch) {
+		if (current.getEpoch() < epoch) {
+			//the current window becomes the previous one only if they are contiguous
+			previous = current.getEpoch() == epoch - 1 ? current : null;
+			current = new ProcessWindow(epoch);
+		}
+		return current;
+	}
+
+	/**
+	 * @param nowMillis the current time
+	 * @return the stats on the current and the previous windows
+	 */
+	ProcessStats getStats(final long nowMillis) {
+		//an idle aggregate must be rotated to forget the old windows
+		getWindow(nowMillis);
+		final ProcessWindow myPrevious = previous;
+		final ProcessWindow myCurrent = current;
+		//---
+		final long[] counts = LatencyHistogram.newCounts();
+		long count = 0;
+		long errors = 0;
+		long max = 0;
+		final Map<String, Double> measureSums = new HashMap<>();
+		for (final ProcessWindow window : new ProcessWindow[] { myPrevious, myCurrent }) {
+			if (window != null) {
+				window.getHistogram().addCountsTo(counts);
+				count += window.getCount();
+				errors += window.getErrors();
+				max = Math.max(max, window.getHistogram().getMax());
+				window.getMeasureSums().forEach((measureName, sum) -> measureSums.merge(measureName, sum.sum(), Double::sum));
+			}
+		}
+		return new ProcessStats(
+				count,
+				count == 0 ? 0 : (double) errors / count,
+				LatencyHistogram.getValueAtPercentile(counts, count, 50, max),
+				LatencyHistogram.getValueAtPercentile(counts, count, 95, max),
+				LatencyHistogram.getValueAtPercentile(counts, count, 99, max),
+				max,
+				measureSums);
+	}
+
+	/**
+	 * Snapshot of the stats of a (category, name).
+	 * Durations are in microseconds.
+	 */
+	static final class ProcessStats {
+		final long count;
+		final double errorRate;
+		final long p50;
+		final long p95;
+		final long p99;
+		final long max;
+		final Map<String, Double> measureSums;
+
+		ProcessStats(final long count, final double errorRate, final long p50, final long p95, final long p99, final long max, final Map<String, Double> measureSums) {
+			this.count = count;
+			this.errorRate = errorRate;
+			this.p50 = p50;
+			this.p95 = p95;
+			this.p99 = p99;
+			this.max = max;
+			this.measureSums = measureSums;
+		}
+	}
+}
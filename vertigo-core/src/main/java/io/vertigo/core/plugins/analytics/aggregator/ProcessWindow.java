@@ -0,0 +1,95 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.aggregator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vertigo.core.analytics.process.AProcess;
+
+/**
+ * Stats of the processes of a (category, name) during a time window.
+ * Counters are striped (LongAdder) so that concurrent threads don't contend.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class ProcessWindow {
+	private static final String SUCCESS_MEASURE = "success";
+	//a rollup sub process stands for rollupCount processes of its mean duration
+	private static final String ROLLUP_MEASURE_PREFIX = "rollup";
+	private static final String ROLLUP_COUNT_MEASURE = "rollupCount";
+	private static final String ROLLUP_FAILURES_MEASURE = "rollupFailures";
+
+	private final long epoch;
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private final LongAdder count = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final Map<String, DoubleAdder> measureSums = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 * @param epoch the index of the window since 1970
+	 */
+	ProcessWindow(final long epoch) {
+		this.epoch = epoch;
+	}
+
+	long getEpoch() {
+		return epoch;
+	}
+
+	void add(final AProcess process) {
+		final Double rollupCount = process.getMeasures().get(ROLLUP_COUNT_MEASURE);
+		if (rollupCount != null) {
+			histogram.record(TimeUnit.NANOSECONDS.toMicros(process.getDurationNanos()), rollupCount.longValue());
+			count.add(rollupCount.longValue());
+			errors.add(process.getMeasures().getOrDefault(ROLLUP_FAILURES_MEASURE, 0d).longValue());
+		} else {
+			histogram.record(TimeUnit.NANOSECONDS.toMicros(process.getDurationNanos()));
+			count.increment();
+			final Double success = process.getMeasures().get(SUCCESS_MEASURE);
+			if (success != null && success == 0) {
+				errors.increment();
+			}
+		}
+		process.getMeasures().forEach((measureName, value) -> {
+			if (!SUCCESS_MEASURE.equals(measureName) && !measureName.startsWith(ROLLUP_MEASURE_PREFIX)) {
+				measureSums.computeIfAbsent(measureName, k -> new DoubleAdder()).add(value);
+			}
+		});
+	}
+
+	LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	long getCount() {
+		return count.sum();
+	}
+
+	long getErrors() {
+		return errors.sum();
+	}
+
+	Map<String, DoubleAdder> getMeasureSums() {
+		return measureSums;
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.vertigo.core.analytics.health.HealthCheck;
+import io.vertigo.core.analytics.health.HealthMeasure;
+import io.vertigo.core.analytics.health.HealthMeasureBuilder;
+import io.vertigo.core.analytics.health.HealthStatus;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.MetricBuilder;
+import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.analytics.process.AProcessBuilder;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Decodes the frames written by the binary transport of the SocketLoggerAnalyticsConnectorPlugin.
+ * One decoder must be used per connection, since the interned strings are shared by all the frames of a connection.
+ *
+ * This class is not thread safe.
+ * @author npiedeloup
+ */
+public final class BinaryAnalyticsDecoder {
+	private final List<String> internedStrings = new ArrayList<>();
+
+	/**
+	 * A decoded frame.
+	 */
+	public static final class Frame {
+		private final String appName;
+		private final String host;
+		private final List<Object> events;
+
+		Frame(final String appName, final String host, final List<Object> events) {
+			this.appName = appName;
+			this.host = host;
+			this.events = Collections.unmodifiableList(events);
+		}
+
+		/**
+		 * @return the app name of the sender
+		 */
+		public String getAppName() {
+			return appName;
+		}
+
+		/**
+		 * @return the host of the sender
+		 */
+		public String getHost() {
+			return host;
+		}
+
+		/**
+		 * @return the events (AProcess, Metric or HealthCheck)
+		 */
+		public List<Object> getEvents() {
+			return events;
+		}
+	}
+
+	/**
+	 * Decodes the payload of a frame (the bytes following the int32 length prefix).
+	 * @param payload the payload
+	 * @return the frame
+	 */
+	public Frame decode(final ByteBuffer payload) {
+		Assertion.check()
+				.isNotNull(payload)
+				.isTrue(payload.hasArray(), "payload must be a heap buffer");
+		//---
+		final byte version = payload.get();
+		Assertion.check().isTrue(version == BinaryAnalyticsEncoder.VERSION, "Unsupported analytics frame version {0}", version);
+		//---
+		final String appName = readString(payload);
+		final String host = readString(payload);
+		final int count = (int) readVarLong(payload);
+		final List<Object> events = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			final byte kind = payload.get();
+			switch (kind) {
+				case BinaryAnalyticsEncoder.KIND_PROCESS:
+					events.add(readProcess(payload));
+					break;
+				case BinaryAnalyticsEncoder.KIND_METRIC:
+					events.add(readMetric(payload));
+					break;
+				case BinaryAnalyticsEncoder.KIND_HEALTH:
+					events.add(readHealthCheck(payload));
+					break;
+				default:
+					throw new IllegalStateException("Unknown analytics event kind " + kind);
+			}
+		}
+		return new Frame(appName, host, events);
+	}
+
+	private AProcess readProcess(final ByteBuffer payload) {
+		final String category = readString(payload);
+		final String name = readString(payload);
+		final Instant start = Instant.ofEpochMilli(readVarLong(payload));
+		final long durationNanos = readVarLong(payload);
+		final AProcessBuilder processBuilder = AProcess.builder(category, name, start, start.plusNanos(durationNanos));
+		//---
+		final int measureCount = (int) readVarLong(payload);
+		for (int i = 0; i < measureCount; i++) {
+			processBuilder.setMeasure(readString(payload), payload.getDouble());
+		}
+		//---
+		final int tagCount = (int) readVarLong(payload);
+		for (int i = 0; i < tagCount; i++) {
+			processBuilder.addTag(readString(payload), readString(payload));
+		}
+		//---
+		final int subProcessCount = (int) readVarLong(payload);
+		for (int i = 0; i < subProcessCount; i++) {
+			processBuilder.addSubProcess(readProcess(payload));
+		}
+		return processBuilder.build();
+	}
+
+	private Metric readMetric(final ByteBuffer payload) {
+		final MetricBuilder metricBuilder = Metric.builder()
+				.withMeasureInstant(Instant.ofEpochMilli(readVarLong(payload)))
+				.withName(readString(payload));
+		final String module = readString(payload);
+		if (module != null) {
+			metricBuilder.withModule(module);
+		}
+		metricBuilder.withFeature(readString(payload));
+		if (Metric.Status.values()[payload.get()] == Metric.Status.SUCCESS) {
+			metricBuilder.withSuccess();
+		} else {
+			metricBuilder.withError();
+		}
+		if (payload.get() != 0) {
+			metricBuilder.withValue(payload.getDouble());
+		}
+		return metricBuilder.build();
+	}
+
+	private HealthCheck readHealthCheck(final ByteBuffer payload) {
+		final Instant checkInstant = Instant.ofEpochMilli(readVarLong(payload));
+		final String name = readString(payload);
+		final String checker = readString(payload);
+		final String module = readString(payload);
+		final String feature = readString(payload);
+		final HealthStatus status = HealthStatus.values()[payload.get()];
+		final String message = readString(payload);
+		final HealthMeasureBuilder healthMeasureBuilder = HealthMeasure.builder();
+		switch (status) {
+			case GREEN:
+				healthMeasureBuilder.withGreenStatus(message);
+				break;
+			case YELLOW:
+				healthMeasureBuilder.withYellowStatus(message, null);
+				break;
+			case RED:
+				healthMeasureBuilder.withRedStatus(message, null);
+				break;
+			default:
+				throw new IllegalStateException("Unknown health status " + status);
+		}
+		return new HealthCheck(name, checker, module, feature, checkInstant, healthMeasureBuilder.build());
+	}
+
+	private String readString(final ByteBuffer payload) {
+		final int ref = (int) readVarLong(payload);
+		switch (ref) {
+			case BinaryAnalyticsEncoder.REF_NULL:
+				return null;
+			case BinaryAnalyticsEncoder.REF_NEW:
+				final String value = readUtf8(payload);
+				internedStrings.add(value);
+				return value;
+			case BinaryAnalyticsEncoder.REF_LITERAL:
+				return readUtf8(payload);
+			default:
+				return internedStrings.get(ref - BinaryAnalyticsEncoder.REF_OFFSET);
+		}
+	}
+
+	private static String readUtf8(final ByteBuffer payload) {
+		final int length = (int) readVarLong(payload);
+		final String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+		payload.position(payload.position() + length);
+		return value;
+	}
+
+	private static long readVarLong(final ByteBuffer payload) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = payload.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+}
@@ -0,0 +1,238 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.vertigo.core.analytics.health.HealthCheck;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.process.AProcess;
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Encodes analytics events (processes, metrics and healthchecks) in a compact length-prefixed binary format.
+ *
+ * A frame is : int32 payloadLength, then the payload :
+ * byte version, string appName, string host, varint eventCount, then each event (byte kind followed by its body).
+ *
+ * Strings are written as a varint ref :
+ * 0 for null, 1 for a new interned string (utf8 follows), 2 for a literal string (utf8 follows), n &gt;= 3 for the interned string n - 3.
+ * Categories, names, modules, features and tag keys are interned : they are sent only once per connection.
+ * The strings interned by a frame are committed only once the frame is written, so a frame which is not sent doesn't shift the ids.
+ * The interning table must be reset (on both sides) each time a new connection is opened.
+ *
+ * This class is not thread safe.
+ * @author npiedeloup
+ */
+final class BinaryAnalyticsEncoder {
+	static final byte VERSION = 1;
+	static final byte KIND_PROCESS = 1;
+	static final byte KIND_METRIC = 2;
+	static final byte KIND_HEALTH = 3;
+
+	static final int REF_NULL = 0;
+	static final int REF_NEW = 1;
+	static final int REF_LITERAL = 2;
+	static final int REF_OFFSET = 3;
+	static final int MAX_INTERNED_STRINGS = 4096;
+
+	private static final int INITIAL_CAPACITY = 8 * 1024;
+	//a buffer grown by a large batch is not retained beyond this capacity
+	private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+	private final Map<String, Integer> internedStrings = new HashMap<>();
+	//strings interned by the last encoded frame, not yet known by the receiver
+	private final Map<String, Integer> pendingStrings = new HashMap<>();
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+	/**
+	 * Forgets all the interned strings : must be called each time a new connection is opened.
+	 */
+	void reset() {
+		internedStrings.clear();
+		pendingStrings.clear();
+	}
+
+	/**
+	 * Commits the strings interned by the last encoded frame : must be called once this frame has been written.
+	 */
+	void commit() {
+		internedStrings.putAll(pendingStrings);
+		pendingStrings.clear();
+	}
+
+	/**
+	 * Encodes a batch of events in one frame.
+	 * The returned buffer is ready to be read and is only valid until the next call.
+	 * Once the frame is written, commit must be called.
+	 * @param appName the app name
+	 * @param host the host
+	 * @param events the events (AProcess, Metric or HealthCheck)
+	 * @return the frame
+	 */
+	ByteBuffer encode(final String appName, final String host, final List<?> events) {
+		Assertion.check()
+				.isNotNull(events);
+		//---
+		//the strings interned by a frame which has not been committed are forgotten
+		pendingStrings.clear();
+		if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+			buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+		}
+		buffer.clear();
+		buffer.putInt(0); //length is written at the end
+		buffer.put(VERSION);
+		writeString(appName, true);
+		writeString(host, true);
+		writeVarLong(events.size());
+		for (final Object event : events) {
+			if (event instanceof AProcess) {
+				ensureCapacity(1);
+				buffer.put(KIND_PROCESS);
+				writeProcess((AProcess) event);
+			} else if (event instanceof Metric) {
+				ensureCapacity(1);
+				buffer.put(KIND_METRIC);
+				writeMetric((Metric) event);
+			} else if (event instanceof HealthCheck) {
+				ensureCapacity(1);
+				buffer.put(KIND_HEALTH);
+				writeHealthCheck((HealthCheck) event);
+			} else {
+				throw new IllegalArgumentException("Unsupported analytics event " + event.getClass().getName());
+			}
+		}
+		buffer.putInt(0, buffer.position() - Integer.BYTES);
+		buffer.flip();
+		return buffer;
+	}
+
+	private void writeProcess(final AProcess process) {
+		writeString(process.getCategory(), true);
+		writeString(process.getName(), true);
+		writeVarLong(process.getStart());
+		writeVarLong(Math.max(0, process.getDurationNanos()));
+		//---
+		writeVarLong(process.getMeasures().size());
+		for (final Map.Entry<String, Double> measure : process.getMeasures().entrySet()) {
+			writeString(measure.getKey(), true);
+			writeDouble(measure.getValue());
+		}
+		//---
+		writeVarLong(process.getTags().size());
+		for (final Map.Entry<String, String> tag : process.getTags().entrySet()) {
+			writeString(tag.getKey(), true);
+			writeString(tag.getValue(), false);
+		}
+		//---
+		final List<AProcess> subProcesses = process.getSubProcesses();
+		writeVarLong(subProcesses.size());
+		for (final AProcess subProcess : subProcesses) {
+			writeProcess(subProcess);
+		}
+	}
+
+	private void writeMetric(final Metric metric) {
+		writeVarLong(metric.getMeasureInstant().toEpochMilli());
+		writeString(metric.getName(), true);
+		writeString(metric.getModule(), true);
+		writeString(metric.getFeature(), true);
+		ensureCapacity(2);
+		buffer.put((byte) metric.getStatus().ordinal());
+		if (metric.getValue() == null) {
+			buffer.put((byte) 0);
+		} else {
+			buffer.put((byte) 1);
+			writeDouble(metric.getValue());
+		}
+	}
+
+	private void writeHealthCheck(final HealthCheck healthCheck) {
+		writeVarLong(healthCheck.getCheckInstant().toEpochMilli());
+		writeString(healthCheck.getName(), true);
+		writeString(healthCheck.getChecker(), true);
+		writeString(healthCheck.getModule(), true);
+		writeString(healthCheck.getFeature(), true);
+		ensureCapacity(1);
+		buffer.put((byte) healthCheck.getMeasure().getStatus().ordinal());
+		writeString(healthCheck.getMeasure().getMessage(), false);
+	}
+
+	private void writeString(final String value, final boolean intern) {
+		if (value == null) {
+			writeVarLong(REF_NULL);
+			return;
+		}
+		if (intern) {
+			Integer id = internedStrings.get(value);
+			if (id == null) {
+				id = pendingStrings.get(value);
+			}
+			if (id != null) {
+				writeVarLong(id + REF_OFFSET);
+				return;
+			}
+			final int internedCount = internedStrings.size() + pendingStrings.size();
+			if (internedCount < MAX_INTERNED_STRINGS) {
+				pendingStrings.put(value, internedCount);
+				writeVarLong(REF_NEW);
+				writeUtf8(value);
+				return;
+			}
+		}
+		writeVarLong(REF_LITERAL);
+		writeUtf8(value);
+	}
+
+	private void writeUtf8(final String value) {
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(bytes.length);
+		ensureCapacity(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private void writeDouble(final double value) {
+		ensureCapacity(Double.BYTES);
+		buffer.putDouble(value);
+	}
+
+	private void writeVarLong(final long value) {
+		Assertion.check().isTrue(value >= 0, "only positive values are supported");
+		//---
+		ensureCapacity(10);
+		long remaining = value;
+		while ((remaining & ~0x7FL) != 0) {
+			buffer.put((byte) ((remaining & 0x7F) | 0x80));
+			remaining >>>= 7;
+		}
+		buffer.put((byte) remaining);
+	}
+
+	private void ensureCapacity(final int size) {
+		if (buffer.remaining() < size) {
+			final ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+			buffer.flip();
+			newBuffer.put(buffer);
+			buffer = newBuffer;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.analytics.log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.vertigo.core.lang.Assertion;
+
+/**
+ * Sends analytics events in batches over a non blocking SocketChannel, using the BinaryAnalyticsEncoder format.
+ * When the server is unreachable, the events are dropped and the connection is retried later with an exponential backoff.
+ *
+ * @author npiedeloup
+ */
+final class BinaryAnalyticsSender {
+	private static final Logger LOGGER = LogManager.getLogger(BinaryAnalyticsSender.class);
+	private static final long MIN_BACKOFF_MILLIS = 250;
+	private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+	private final String hostName;
+	private final int port;
+	private final int connectTimeoutMillis;
+	private final int writeTimeoutMillis;
+	private final String appName;
+	private final String localHostName;
+
+	private final BinaryAnalyticsEncoder encoder = new BinaryAnalyticsEncoder();
+	private final LongAdder sentEvents = new LongAdder();
+	private final LongAdder droppedEvents = new LongAdder();
+
+	private SocketChannel channel;
+	private Selector selector;
+	private long backoffMillis = MIN_BACKOFF_MILLIS;
+	private long nextConnectMillis;
+
+	/**
+	 * Constructor.
+	 * @param hostName hostName of the remote server
+	 * @param port port of the remote server
+	 * @param connectTimeoutMillis connection timeout
+	 * @param writeTimeoutMillis max time to write a frame before considering the connection as lost
+	 * @param appName the app name, sent in each frame
+	 * @param localHostName the local host name, sent in each frame
+	 */
+	BinaryAnalyticsSender(
+			final String hostName,
+			final int port,
+			final int connectTimeoutMillis,
+			final int writeTimeoutMillis,
+			final String appName,
+			final String localHostName) {
+		Assertion.check()
+				.isNotBlank(hostName)
+				.isTrue(port > 0, "port must be positive")
+				.isNotBlank(appName)
+				.isNotBlank(localHostName);
+		//---
+		this.hostName = hostName;
+		this.port = port;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.writeTimeoutMillis = writeTimeoutMillis;
+		this.appName = appName;
+		this.localHostName = localHostName;
+	}
+
+	/**
+	 * Sends a batch of events in a single frame.
+	 * @param events the events (AProcess, Metric or HealthCheck)
+	 */
+	synchronized void send(final List<?> events) {
+		if (events.isEmpty()) {
+			return;
+		}
+		if (!ensureConnected()) {
+			droppedEvents.add(events.size());
+			return;
+		}
+		try {
+			write(encoder.encode(appName, localHostName, events));
+			encoder.commit();
+			sentEvents.add(events.size());
+		} catch (final IOException e) {
+			LOGGER.info("Analytics connection to {}:{} lost, {} events dropped", hostName, port, events.size(), e);
+			disconnect();
+			scheduleReconnect();
+			droppedEvents.add(events.size());
+		}
+	}
+
+	/**
+	 * @return the count of events sent
+	 */
+	long getSentEvents() {
+		return sentEvents.sum();
+	}
+
+	/**
+	 * @return the count of events dropped because the server was unreachable
+	 */
+	long getDroppedEvents() {
+		return droppedEvents.sum();
+	}
+
+	/**
+	 * Closes the connection.
+	 */
+	synchronized void close() {
+		disconnect();
+	}
+
+	private boolean ensureConnected() {
+		if (channel != null) {
+			return true;
+		}
+		if (System.currentTimeMillis() < nextConnectMillis) {
+			return false;
+		}
+		try {
+			channel = SocketChannel.open();
+			channel.socket().connect(new InetSocketAddress(hostName, port), connectTimeoutMillis);
+			channel.configureBlocking(false);
+			selector = Selector.open();
+			channel.register(selector, SelectionKey.OP_WRITE);
+			//a new connection means a new receiver : strings must be interned again
+			encoder.reset();
+			backoffMillis = MIN_BACKOFF_MILLIS;
+			return true;
+		} catch (final IOException e) {
+			LOGGER.info("Cannot connect to analytics server {}:{}, next try in {}ms", hostName, port, backoffMillis);
+			disconnect();
+			scheduleReconnect();
+			return false;
+		}
+	}
+
+	private void write(final ByteBuffer frame) throws IOException {
+		final long deadline = System.currentTimeMillis() + writeTimeoutMillis;
+		while (frame.hasRemaining()) {
+			if (channel.write(frame) == 0) {
+				final long remainingMillis = deadline - System.currentTimeMillis();
+				if (remainingMillis <= 0) {
+					throw new IOException("Timeout while writing analytics to " + hostName + ":" + port);
+				}
+				//the socket buffer is full : we wait until the server reads
+				selector.select(remainingMillis);
+				selector.selectedKeys().clear();
+			}
+		}
+	}
+
+	private void scheduleReconnect() {
+		nextConnectMillis = System.currentTimeMillis() + backoffMillis;
+		backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+	}
+
+	private void disconnect() {
+		closeQuietly(selector);
+		closeQuietly(channel);
+		selector = null;
+		channel = null;
+	}
+
+	private static void closeQuietly(final AutoCloseable closeable) {
+		if (closeable != null) {
+			try {
+				closeable.close();
+			} catch (final Exception e) {
+				LOGGER.debug("Error while closing analytics connection", e);
+			}
+		}
+	}
+}
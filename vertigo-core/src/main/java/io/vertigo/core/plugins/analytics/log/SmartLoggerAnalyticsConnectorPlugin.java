@@ -18,6 +18,7 @@
 package io.vertigo.core.plugins.analytics.log;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
@@ -73,7 +74,7 @@ public final class SmartLoggerAnalyticsConnectorPlugin implements AnalyticsConne
 			if (result.count != 0) {
 				final JsonObject aggregatedObject = new JsonObject();
 				aggregatedObject.addProperty("count", result.count);
-				aggregatedObject.addProperty("durationMillis", result.duration);
+				aggregatedObject.addProperty("durationMillis", TimeUnit.NANOSECONDS.toMillis(result.durationNanos));
 				//--
 				jsonObject.add(aggregatedByOpt.get(), aggregatedObject);
 			}
@@ -93,7 +94,8 @@ public final class SmartLoggerAnalyticsConnectorPlugin implements AnalyticsConne
 				.filter(subprocess -> category.equals(subprocess.getCategory()))
 				.forEach(subprocess -> {
 					aggregatedResult.count++;
-					aggregatedResult.duration += subprocess.getDurationMillis();
+					//nanos are summed : many fast subprocesses may last more than a millisecond
+					aggregatedResult.durationNanos += subprocess.getDurationNanos();
 				});
 
 		//---
@@ -106,7 +108,7 @@ public final class SmartLoggerAnalyticsConnectorPlugin implements AnalyticsConne
 
 	static class AggregatedResult {
 		int count;
-		long duration;
+		long durationNanos;
 	}
 
 	@Override
@@ -19,9 +19,13 @@ package io.vertigo.core.plugins.analytics.log;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 
@@ -42,8 +46,8 @@ import com.google.gson.JsonObject;
 
 import io.vertigo.core.analytics.health.HealthCheck;
 import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.metric.Metrics;
 import io.vertigo.core.analytics.process.AProcess;
-import io.vertigo.core.daemon.DaemonScheduled;
 import io.vertigo.core.impl.analytics.AnalyticsConnectorPlugin;
 import io.vertigo.core.lang.Assertion;
 import io.vertigo.core.node.Node;
@@ -52,13 +56,27 @@ import io.vertigo.core.param.ParamValue;
 
 /**
  * Processes connector which use the log4j SocketAppender.
+ * Events are stored in a bounded queue, drained by a dedicated thread as soon as they arrive (by batches of maxBatchSize, waiting at most lingerMillis to fill a batch).
+ * When the queue is full, events are dropped and counted ; the queue is flushed by the consumer thread when the plugin stops,
+ * and the connection is closed once this thread has ended.
+ * Once the plugin is stopping, the events which are added are dropped and counted : they are never left in the queue.
+ * With the transport 'binary', events are sent in batches with a compact binary format (see BinaryAnalyticsEncoder) instead of log4j serialized json.
  * @author mlaroche, pchretien, npiedeloup
  */
 public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConnectorPlugin, Activeable {
+	private static final Logger LOG = LogManager.getLogger(SocketLoggerAnalyticsConnectorPlugin.class);
 	private static final Gson GSON = new GsonBuilder().create();
 	private static final int DEFAULT_CONNECT_TIMEOUT = 250;// 250ms for connection to log4j server
 	private static final int DEFAULT_DISCONNECT_TIMEOUT = 5000;// 5s for disconnection to log4j server
 	private static final int DEFAULT_SERVER_PORT = 4562;// DefaultPort of SocketAppender 4650 for log4j and 4562 for log4j2
+	private static final int DEFAULT_WRITE_TIMEOUT = 5000;// 5s to write a batch with the binary transport
+	private static final int DEFAULT_QUEUE_SIZE = 10_000;// max events waiting to be sent
+	private static final int DEFAULT_MAX_BATCH_SIZE = 500;// max events sent at once (per frame with the binary transport)
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+	//longer than a write, so that the batch being written and the final flush can end
+	private static final long STOP_TIMEOUT_MILLIS = 2L * DEFAULT_WRITE_TIMEOUT;
+	private static final String TRANSPORT_LOG4J = "log4j";
+	private static final String TRANSPORT_BINARY = "binary";
 
 	private Logger socketProcessLogger;
 	private Logger socketHealthLogger;
@@ -67,28 +85,61 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 	private final int port;
 	private SocketAppender appender;
 	private AppenderRef[] appenderRefs;
+	private final boolean binaryTransport;
+	private BinaryAnalyticsSender binarySender;
 
 	private final String appName;
 	private final String localHostName;
 
-	private final ConcurrentLinkedQueue<AProcess> processQueue = new ConcurrentLinkedQueue<>();
+	//only processes with log4j transport, all the events with binary transport
+	private final BlockingQueue<Object> eventQueue;
+	private final int maxBatchSize;
+	private final long lingerMillis;
+	private final LongAdder droppedEvents = new LongAdder();
+	private volatile boolean running;
+	//true from the beginning of stop : the events are rejected
+	private volatile boolean stopping;
+	private Thread consumerThread;
 
 	/**
 	 * Constructor.
 	 * @param appNameOpt the node name
 	 * @param hostNameOpt hostName of the remote server
 	 * @param portOpt port of the remote server
+	 * @param transportOpt the transport : log4j (by default) or binary
+	 * @param queueSizeOpt the max number of events waiting to be sent (10 000 by default)
+	 * @param maxBatchSizeOpt the max number of events sent at once (500 by default)
+	 * @param lingerMillisOpt how long to wait for more events before sending a batch (0 by default : sent as soon as possible)
 	 */
 	@Inject
 	public SocketLoggerAnalyticsConnectorPlugin(
 			@ParamValue("appName") final Optional<String> appNameOpt,
 			@ParamValue("hostName") final Optional<String> hostNameOpt,
-			@ParamValue("port") final Optional<Integer> portOpt) {
+			@ParamValue("port") final Optional<Integer> portOpt,
+			@ParamValue("transport") final Optional<String> transportOpt,
+			@ParamValue("queueSize") final Optional<Integer> queueSizeOpt,
+			@ParamValue("maxBatchSize") final Optional<Integer> maxBatchSizeOpt,
+			@ParamValue("lingerMillis") final Optional<Integer> lingerMillisOpt) {
 		Assertion.check()
 				.isNotNull(appNameOpt)
 				.isNotNull(hostNameOpt)
-				.isNotNull(portOpt);
+				.isNotNull(portOpt)
+				.isNotNull(transportOpt)
+				.isNotNull(queueSizeOpt)
+				.isNotNull(maxBatchSizeOpt)
+				.isNotNull(lingerMillisOpt);
+		final String transport = transportOpt.orElse(TRANSPORT_LOG4J);
+		final int queueSize = queueSizeOpt.orElse(DEFAULT_QUEUE_SIZE);
+		maxBatchSize = maxBatchSizeOpt.orElse(DEFAULT_MAX_BATCH_SIZE);
+		lingerMillis = lingerMillisOpt.orElse(0);
+		Assertion.check()
+				.isTrue(TRANSPORT_LOG4J.equals(transport) || TRANSPORT_BINARY.equals(transport), "transport must be '{0}' or '{1}' (found '{2}')", TRANSPORT_LOG4J, TRANSPORT_BINARY, transport)
+				.isTrue(queueSize > 0, "the queue size {0} must be > 0", queueSize)
+				.isTrue(maxBatchSize > 0, "the batch size {0} must be > 0", maxBatchSize)
+				.isTrue(lingerMillis >= 0, "the linger time {0} must be >= 0", lingerMillis);
 		// ---
+		eventQueue = new ArrayBlockingQueue<>(queueSize);
+		binaryTransport = TRANSPORT_BINARY.equals(transport);
 		appName = appNameOpt.orElseGet(() -> Node.getNode().getNodeConfig().getAppName());
 		hostName = hostNameOpt.orElse("analytica.part.klee.lan.net");
 		port = portOpt.orElse(DEFAULT_SERVER_PORT);
@@ -101,12 +152,16 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 		Assertion.check()
 				.isNotNull(process);
 		//---
-		processQueue.add(process);
+		enqueue(process);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public void add(final Metric metric) {
+		if (binaryTransport) {
+			enqueue(metric);
+			return;
+		}
 		if (socketMetricLogger == null) {
 			socketMetricLogger = createLogger("vertigo-analytics-metric");
 		}
@@ -117,6 +172,10 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 	/** {@inheritDoc} */
 	@Override
 	public void add(final HealthCheck healthCheck) {
+		if (binaryTransport) {
+			enqueue(healthCheck);
+			return;
+		}
 		if (socketHealthLogger == null) {
 			socketHealthLogger = createLogger("vertigo-analytics-health");
 		}
@@ -124,6 +183,21 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 
 	}
 
+	private void enqueue(final Object event) {
+		if (stopping) {
+			//the queue may have been flushed already
+			droppedEvents.increment();
+			return;
+		}
+		if (!eventQueue.offer(event)) {
+			//we never block the business thread : the event is lost
+			droppedEvents.increment();
+		} else if (stopping && eventQueue.remove(event)) {
+			//the plugin has begun to stop meanwhile and the event has not been flushed : it's rejected rather than left in the queue
+			droppedEvents.increment();
+		}
+	}
+
 	private static String retrieveHostName() {
 		try {
 			return InetAddress.getLocalHost().getHostName();
@@ -135,7 +209,19 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 
 	@Override
 	public void start() {
+		if (binaryTransport) {
+			binarySender = new BinaryAnalyticsSender(hostName, port, DEFAULT_CONNECT_TIMEOUT, DEFAULT_WRITE_TIMEOUT, appName, localHostName);
+		} else {
+			startAppender();
+		}
+		stopping = false;
+		running = true;
+		consumerThread = new Thread(this::consume, "vertigo-analytics-socketLogger");
+		consumerThread.setDaemon(true);
+		consumerThread.start();
+	}
 
+	private void startAppender() {
 		//we create appender (like a resource it must be close on stop)
 		appender = SocketAppender.newBuilder()
 				.setName("socketAnalytics")
@@ -157,8 +243,42 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 
 	@Override
 	public void stop() {
+		stopping = true;
+		running = false;
+		final Thread consumer = consumerThread;
+		consumerThread = null;
+		//the consumer flushes the queue before ending
+		join(consumer, STOP_TIMEOUT_MILLIS);
+		if (consumer.isAlive()) {
+			//the server is too slow : the flush is aborted and the remaining events are dropped
+			consumer.interrupt();
+			join(consumer, DEFAULT_WRITE_TIMEOUT);
+		}
+		final boolean consumerEnded = !consumer.isAlive();
+		if (!consumerEnded) {
+			LOG.warn("The analytics consumer thread has not ended, the connection to {}:{} is closed anyway", hostName, port);
+		}
+		//---
+		if (binaryTransport) {
+			binarySender.close();
+			if (consumerEnded) {
+				binarySender = null;
+			}
+			return;
+		}
 		appender.stop(DEFAULT_DISCONNECT_TIMEOUT, TimeUnit.MILLISECONDS);
-		appender = null;
+		if (consumerEnded) {
+			appender = null;
+		}
+	}
+
+	private static void join(final Thread thread, final long timeoutMillis) {
+		try {
+			thread.join(timeoutMillis);
+		} catch (final InterruptedException e) {
+			// Restore interrupted state...
+			Thread.currentThread().interrupt();
+		}
 	}
 
 	private Logger createLogger(final String loggerName) {
@@ -177,18 +297,90 @@ public final class SocketLoggerAnalyticsConnectorPlugin implements AnalyticsConn
 		return LogManager.getLogger(loggerName);
 	}
 
+	private void consume() {
+		final List<Object> batch = new ArrayList<>(maxBatchSize);
+		while (running) {
+			try {
+				final Object head = eventQueue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (head != null) {
+					batch.add(head);
+					fillBatch(batch);
+					send(batch);
+				}
+			} catch (final InterruptedException e) {
+				// Restore interrupted state and stop consuming : the stop has given up waiting
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		//flush : we send what remains before the connection is closed, unless the stop has given up waiting
+		while (!Thread.currentThread().isInterrupted() && eventQueue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+			send(batch);
+		}
+		eventQueue.drainTo(batch);
+		droppedEvents.add(batch.size());
+		batch.clear();
+	}
+
+	private void fillBatch(final List<Object> batch) throws InterruptedException {
+		eventQueue.drainTo(batch, maxBatchSize - batch.size());
+		if (lingerMillis > 0) {
+			//we wait a little for more events to send bigger batches
+			final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+			long remainingNanos = deadline - System.nanoTime();
+			while (batch.size() < maxBatchSize && remainingNanos > 0) {
+				final Object next = eventQueue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+				if (next == null) {
+					break;
+				}
+				batch.add(next);
+				eventQueue.drainTo(batch, maxBatchSize - batch.size());
+				remainingNanos = deadline - System.nanoTime();
+			}
+		}
+	}
+
+	private void send(final List<Object> batch) {
+		try {
+			if (binaryTransport) {
+				binarySender.send(batch);
+			} else {
+				for (final Object event : batch) {
+					sendProcess((AProcess) event);
+				}
+			}
+		} catch (final Exception e) {
+			droppedEvents.add(batch.size());
+			LOG.error("Unable to send " + batch.size() + " analytics events to " + hostName + ":" + port, e);
+		} finally {
+			batch.clear();
+		}
+	}
+
 	/**
-	 * Daemon to unstack processes to end them
+	 * @return the metrics of the queue (dropped and pending events)
 	 */
-	@DaemonScheduled(name = "DmnRemoteLogger", periodInSeconds = 1, analytics = false)
-	public void pollQueue() {
-		while (!processQueue.isEmpty()) {
-			final AProcess head = processQueue.poll();
-			if (head != null) {
-				sendProcess(head);
-			}
+	@Metrics
+	public List<Metric> getQueueMetrics() {
+		final List<Metric> metrics = new ArrayList<>();
+		final BinaryAnalyticsSender sender = binarySender;
+		final long senderDroppedEvents = sender == null ? 0 : sender.getDroppedEvents();
+		metrics.add(buildQueueMetric("droppedEvents", droppedEvents.sum() + senderDroppedEvents));
+		metrics.add(buildQueueMetric("pendingEvents", eventQueue.size()));
+		if (sender != null) {
+			metrics.add(buildQueueMetric("sentEvents", sender.getSentEvents()));
 		}
+		return metrics;
+	}
 
+	private static Metric buildQueueMetric(final String name, final double value) {
+		return Metric.builder()
+				.withName(name)
+				.withFeature("analytics")
+				.withModule("socketLogger")
+				.withValue(value)
+				.withSuccess()
+				.build();
 	}
 
 	private void sendProcess(final AProcess process) {
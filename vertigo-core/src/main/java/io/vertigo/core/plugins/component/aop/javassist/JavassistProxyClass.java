@@ -0,0 +1,210 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.component.aop.javassist;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.component.aop.Aspect;
+import io.vertigo.core.node.component.aop.AspectMethodInvocation;
+import io.vertigo.core.util.ClassUtil;
+import io.vertigo.core.util.MethodInvoker;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+/**
+ * A subclass of a component generated with javassist.
+ *
+ * Each public method is overridden (except the bridge methods : the inherited bridge calls the overridden method) :
+ *  - a method without aspect delegates directly to the target,
+ *  - an advised method calls its aspect chain, which ends with the cached invoker of the method.
+ * There is neither lookup nor reflective access check during a call.
+ *
+ * The generated classes are cached by component class and set of advised methods.
+ *
+ * @author pchretien, npiedeloup
+ */
+final class JavassistProxyClass {
+	private static final String TARGET_FIELD = "_vertigoTarget";
+	private static final String CHAIN_FIELD_PREFIX = "_vertigoChain";
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+	private static final ClassValue<Map<Set<Method>, JavassistProxyClass>> PROXY_CLASSES = new ClassValue<>() {
+		@Override
+		protected Map<Set<Method>, JavassistProxyClass> computeValue(final Class<?> implClass) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	private final Class<?> proxyClass;
+	private final Field targetField;
+	//--- by advised method
+	private final Map<Method, Field> chainFields;
+
+	private JavassistProxyClass(
+			final Class<?> proxyClass,
+			final Field targetField,
+			final Map<Method, Field> chainFields) {
+		this.proxyClass = proxyClass;
+		this.targetField = targetField;
+		this.chainFields = chainFields;
+	}
+
+	/**
+	 * @param implClass the class of the component
+	 * @param advisedMethods the methods with at least one aspect
+	 * @return the proxy class, generated on first use
+	 */
+	static JavassistProxyClass of(final Class<?> implClass, final Set<Method> advisedMethods) {
+		Assertion.check()
+				.isNotNull(implClass)
+				.isNotNull(advisedMethods);
+		//-----
+		return PROXY_CLASSES.get(implClass)
+				.computeIfAbsent(Set.copyOf(advisedMethods), methods -> generate(implClass, methods));
+	}
+
+	/**
+	 * @param object an object
+	 * @return if the object has been created by a proxy class
+	 */
+	static boolean isProxy(final Object object) {
+		return Stream.of(object.getClass().getDeclaredFields())
+				.anyMatch(field -> TARGET_FIELD.equals(field.getName()));
+	}
+
+	/**
+	 * @param proxy a proxy
+	 * @return the target of the proxy
+	 */
+	static Object getTarget(final Object proxy) {
+		try {
+			return ClassUtil.get(proxy, proxy.getClass().getDeclaredField(TARGET_FIELD));
+		} catch (final NoSuchFieldException e) {
+			throw WrappedException.wrap(e, "the component {0} is not unwrappable", proxy.getClass());
+		}
+	}
+
+	/**
+	 * Creates a proxy.
+	 * @param instance the target
+	 * @param joinPoints the aspects by method
+	 * @return the proxy
+	 */
+	<C> C newProxy(final C instance, final Map<Method, List<Aspect>> joinPoints) {
+		final C proxy = (C) ClassUtil.newInstance(proxyClass);
+		ClassUtil.set(proxy, targetField, instance);
+		for (final Map.Entry<Method, Field> entry : chainFields.entrySet()) {
+			final Method method = entry.getKey();
+			final MethodInvoker invoker = ClassUtil.getProxyInvoker(method);
+			final AspectMethodInvocation chain = AspectMethodInvocation.chain(method, joinPoints.get(method), args -> invoker.invoke(instance, args));
+			ClassUtil.set(proxy, entry.getValue(), chain);
+		}
+		return proxy;
+	}
+
+	private static JavassistProxyClass generate(final Class<?> implClass, final Set<Method> advisedMethods) {
+		Assertion.check()
+				.isFalse(Modifier.isFinal(implClass.getModifiers()), "the class '{0}' has aspects and can not be final", implClass.getName())
+				.isTrue(Stream.of(implClass.getDeclaredConstructors()).anyMatch(constructor -> constructor.getParameterCount() == 0),
+						"the class '{0}' has aspects and must have a constructor without parameters", implClass.getName());
+		//-----
+		final ClassPool pool = new ClassPool(true);
+		pool.appendClassPath(new LoaderClassPath(implClass.getClassLoader()));
+		try {
+			final CtClass implCtClass = pool.get(implClass.getName());
+			final CtClass proxyCtClass = pool.makeClass(implClass.getName() + "$$VertigoProxy" + SEQUENCE.incrementAndGet(), implCtClass);
+			proxyCtClass.addField(new CtField(implCtClass, TARGET_FIELD, proxyCtClass));
+			proxyCtClass.addConstructor(CtNewConstructor.defaultConstructor(proxyCtClass));
+
+			final CtClass chainCtClass = pool.get(AspectMethodInvocation.class.getName());
+			final List<Method> chainedMethods = new ArrayList<>();
+			for (final Method method : implClass.getMethods()) {
+				//a bridge (generic interface, covariant return) is inherited : it calls the overridden method, so the aspects are applied once
+				if (method.isBridge() || method.isSynthetic() || Modifier.isStatic(method.getModifiers()) || Modifier.isFinal(method.getModifiers())) {
+					continue;
+				}
+				final String body;
+				if (advisedMethods.contains(method)) {
+					final String chainField = CHAIN_FIELD_PREFIX + chainedMethods.size();
+					proxyCtClass.addField(new CtField(chainCtClass, chainField, proxyCtClass));
+					chainedMethods.add(method);
+					body = returns(method, (isVoid(method) ? "" : "($r) ") + chainField + ".proceed($args)");
+				} else {
+					body = returns(method, TARGET_FIELD + '.' + method.getName() + "($$)");
+				}
+				final CtMethod ctMethod = new CtMethod(toCtClass(pool, method.getReturnType()), method.getName(), toCtClasses(pool, method.getParameterTypes()), proxyCtClass);
+				ctMethod.setExceptionTypes(toCtClasses(pool, method.getExceptionTypes()));
+				ctMethod.setModifiers(javassist.Modifier.PUBLIC | (method.isVarArgs() ? javassist.Modifier.VARARGS : 0));
+				ctMethod.setBody(body);
+				proxyCtClass.addMethod(ctMethod);
+			}
+			final Class<?> proxyClass = proxyCtClass.toClass(implClass);
+			proxyCtClass.detach();
+			//---
+			final Map<Method, Field> chainFields = new HashMap<>();
+			for (int i = 0; i < chainedMethods.size(); i++) {
+				chainFields.put(chainedMethods.get(i), proxyClass.getDeclaredField(CHAIN_FIELD_PREFIX + i));
+			}
+			return new JavassistProxyClass(proxyClass, proxyClass.getDeclaredField(TARGET_FIELD), chainFields);
+		} catch (final NotFoundException | CannotCompileException | NoSuchFieldException e) {
+			throw WrappedException.wrap(e, "the proxy of '{0}' can not be generated", implClass.getName());
+		}
+	}
+
+	private static boolean isVoid(final Method method) {
+		return void.class.equals(method.getReturnType());
+	}
+
+	private static String returns(final Method method, final String call) {
+		return isVoid(method) ? "{ " + call + "; }" : "{ return " + call + "; }";
+	}
+
+	private static String toSourceName(final Class<?> type) {
+		//javassist uses the binary names of the nested classes (Outer$Inner)
+		return type.isArray() ? toSourceName(type.getComponentType()) + "[]" : type.getName();
+	}
+
+	private static CtClass toCtClass(final ClassPool pool, final Class<?> type) throws NotFoundException {
+		return pool.get(toSourceName(type));
+	}
+
+	private static CtClass[] toCtClasses(final ClassPool pool, final Class<?>[] types) throws NotFoundException {
+		final CtClass[] ctClasses = new CtClass[types.length];
+		for (int i = 0; i < types.length; i++) {
+			ctClasses[i] = toCtClass(pool, types[i]);
+		}
+		return ctClasses;
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.component.aop.weaving;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import io.vertigo.core.analytics.process.Analytics;
+import io.vertigo.core.node.component.aop.AspectAnnotation;
+
+/**
+ * Generates at build time the subclasses used by the WovenAopPlugin.
+ *
+ * A subclass is generated for each class having methods annotated with an aspect annotation (or annotated itself) :
+ *  - a method without aspect delegates to the instance,
+ *  - an advised method calls its aspect chain.
+ * The runtime path is made of plain virtual calls.
+ *
+ * The processor is only run on the sources that use an aspect annotation : the aspect annotations of vertigo
+ * and the ones listed by the option vertigo.aspectAnnotations (full names separated by a comma, ex : -Avertigo.aspectAnnotations=com.app.Transactional).
+ * Once it's run, all the classes of the compilation having an aspect annotation are woven.
+ *
+ * @author npiedeloup
+ */
+@SupportedOptions(AopWeavingProcessor.ASPECT_ANNOTATIONS_OPTION)
+public final class AopWeavingProcessor extends AbstractProcessor {
+	/** Option listing the aspect annotations of the application. */
+	static final String ASPECT_ANNOTATIONS_OPTION = "vertigo.aspectAnnotations";
+	private static final String ASPECT_METHOD_INVOCATION = "io.vertigo.core.node.component.aop.AspectMethodInvocation";
+
+	/** {@inheritDoc} */
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		final Set<String> aspectAnnotations = new HashSet<>();
+		aspectAnnotations.add(Analytics.class.getName());
+		final String aspectAnnotationsOption = processingEnv.getOptions().get(ASPECT_ANNOTATIONS_OPTION);
+		if (aspectAnnotationsOption != null) {
+			Stream.of(aspectAnnotationsOption.split(","))
+					.map(String::trim)
+					.filter(aspectAnnotation -> !aspectAnnotation.isEmpty())
+					.forEach(aspectAnnotations::add);
+		}
+		return aspectAnnotations;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		for (final Element element : roundEnv.getRootElements()) {
+			weaveAll(element);
+		}
+		//other processors may use the same annotations
+		return false;
+	}
+
+	private void weaveAll(final Element element) {
+		if (element.getKind() != ElementKind.CLASS) {
+			return;
+		}
+		final TypeElement typeElement = (TypeElement) element;
+		final List<ExecutableElement> methods = getOverridableMethods(typeElement);
+		final List<ExecutableElement> advisedMethods = getAdvisedMethods(typeElement, methods);
+		if (!advisedMethods.isEmpty() && isWeavable(typeElement)) {
+			weave(typeElement, methods, advisedMethods);
+		}
+		for (final Element enclosedElement : element.getEnclosedElements()) {
+			if (enclosedElement.getModifiers().contains(Modifier.STATIC)) {
+				weaveAll(enclosedElement);
+			}
+		}
+	}
+
+	private List<ExecutableElement> getOverridableMethods(final TypeElement typeElement) {
+		return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(typeElement))
+				.stream()
+				.filter(method -> method.getModifiers().contains(Modifier.PUBLIC))
+				.filter(method -> !method.getModifiers().contains(Modifier.STATIC))
+				.filter(method -> !method.getModifiers().contains(Modifier.FINAL))
+				.filter(method -> !method.getModifiers().contains(Modifier.ABSTRACT))
+				.collect(Collectors.toList());
+	}
+
+	/*
+	 * Same rules as the ComponentAspectUtil : the aspects of the class apply to all the methods which are not declared by Object.
+	 */
+	private List<ExecutableElement> getAdvisedMethods(final TypeElement typeElement, final List<ExecutableElement> methods) {
+		final boolean advisedClass = hasAspectAnnotation(typeElement);
+		return methods.stream()
+				.filter(method -> hasAspectAnnotation(method)
+						|| advisedClass && !Object.class.getName().equals(((TypeElement) method.getEnclosingElement()).getQualifiedName().toString()))
+				.collect(Collectors.toList());
+	}
+
+	private static boolean hasAspectAnnotation(final Element element) {
+		for (final AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+			if (annotationMirror.getAnnotationType().asElement().getAnnotation(AspectAnnotation.class) != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isWeavable(final TypeElement typeElement) {
+		final String reason;
+		if (typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+			//only the concrete classes are components
+			return false;
+		} else if (typeElement.getQualifiedName().toString().endsWith(WovenAopPlugin.WOVEN_SUFFIX)) {
+			return false;
+		} else if (typeElement.getModifiers().contains(Modifier.FINAL)) {
+			reason = "is final";
+		} else if (typeElement.getModifiers().contains(Modifier.PRIVATE)) {
+			reason = "is private";
+		} else if (!typeElement.getTypeParameters().isEmpty()) {
+			reason = "is generic";
+		} else if (ElementFilter.constructorsIn(typeElement.getEnclosedElements()).stream()
+				.noneMatch(constructor -> constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))) {
+			reason = "has no constructor without parameters";
+		} else {
+			return true;
+		}
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "the class " + typeElement.getQualifiedName() + " has aspects but can not be woven : it " + reason, typeElement);
+		return false;
+	}
+
+	private void weave(final TypeElement typeElement, final List<ExecutableElement> methods, final List<ExecutableElement> advisedMethods) {
+		final String packageName = processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+		final String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+		final String wovenSimpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1) + WovenAopPlugin.WOVEN_SUFFIX;
+		final String implName = typeElement.getQualifiedName().toString();
+
+		final List<String> lines = new ArrayList<>();
+		if (!packageName.isEmpty()) {
+			lines.add("package " + packageName + ";");
+			lines.add("");
+		}
+		lines.add("/**");
+		lines.add(" * Generated by the AopWeavingProcessor, do not edit.");
+		lines.add(" */");
+		lines.add("@javax.annotation.processing.Generated(\"" + AopWeavingProcessor.class.getName() + "\")");
+		lines.add("@SuppressWarnings(\"unchecked\")");
+		lines.add("public final class " + wovenSimpleName + " extends " + implName + " implements " + WovenComponent.class.getName() + " {");
+		lines.add("\tprivate " + implName + " wovenTarget;");
+		for (int i = 0; i < advisedMethods.size(); i++) {
+			lines.add("\tprivate " + ASPECT_METHOD_INVOCATION + " wovenChain" + i + ";");
+		}
+		//--- link
+		lines.add("");
+		lines.add("\t@Override");
+		lines.add("\tpublic void wovenLink(final Object target, final java.util.function.Function<java.lang.reflect.Method, " + ASPECT_METHOD_INVOCATION + "> chains) {");
+		lines.add("\t\twovenTarget = (" + implName + ") target;");
+		for (int i = 0; i < advisedMethods.size(); i++) {
+			final ExecutableElement method = advisedMethods.get(i);
+			final StringBuilder parameterClasses = new StringBuilder();
+			method.getParameters().forEach(parameter -> parameterClasses.append(", ").append(processingEnv.getTypeUtils().erasure(parameter.asType())).append(".class"));
+			lines.add("\t\twovenChain" + i + " = chains.apply(io.vertigo.core.util.ClassUtil.findMethod(" + implName + ".class, \"" + method.getSimpleName() + "\"" + parameterClasses + "));");
+		}
+		lines.add("\t}");
+		lines.add("");
+		lines.add("\t@Override");
+		lines.add("\tpublic Object wovenTarget() {");
+		lines.add("\t\treturn wovenTarget;");
+		lines.add("\t}");
+		//--- methods
+		for (final ExecutableElement method : methods) {
+			lines.add("");
+			weaveMethod(lines, typeElement, method, advisedMethods.indexOf(method));
+		}
+		lines.add("}");
+
+		try (PrintWriter writer = new PrintWriter(processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? wovenSimpleName : packageName + '.' + wovenSimpleName, typeElement).openWriter())) {
+			lines.forEach(writer::println);
+		} catch (final IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "the class " + implName + " can not be woven : " + e.getMessage(), typeElement);
+		}
+	}
+
+	private void weaveMethod(final List<String> lines, final TypeElement typeElement, final ExecutableElement method, final int chainIndex) {
+		//the types as seen from the class (type arguments of the superclasses are resolved)
+		final ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf((DeclaredType) typeElement.asType(), method);
+		final boolean isVoid = methodType.getReturnType().getKind() == TypeKind.VOID;
+
+		final StringBuilder signature = new StringBuilder("\tpublic ");
+		if (!method.getTypeParameters().isEmpty()) {
+			signature.append(method.getTypeParameters().stream()
+					.map(AopWeavingProcessor::toSource)
+					.collect(Collectors.joining(", ", "<", "> ")));
+		}
+		signature.append(methodType.getReturnType()).append(' ').append(method.getSimpleName()).append('(');
+		final List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+		final List<String> args = new ArrayList<>();
+		for (int i = 0; i < parameterTypes.size(); i++) {
+			String parameterType = parameterTypes.get(i).toString();
+			if (method.isVarArgs() && i == parameterTypes.size() - 1) {
+				parameterType = parameterType.substring(0, parameterType.length() - 2) + "...";
+			}
+			signature.append(i > 0 ? ", " : "").append("final ").append(parameterType).append(" arg").append(i);
+			args.add("arg" + i);
+		}
+		signature.append(')');
+		if (!methodType.getThrownTypes().isEmpty()) {
+			signature.append(methodType.getThrownTypes().stream()
+					.map(TypeMirror::toString)
+					.collect(Collectors.joining(", ", " throws ", "")));
+		}
+		signature.append(" {");
+
+		final String call;
+		if (chainIndex < 0) {
+			call = "wovenTarget." + method.getSimpleName() + '(' + String.join(", ", args) + ')';
+		} else {
+			final String proceed = "wovenChain" + chainIndex + ".proceed(new Object[] { " + String.join(", ", args) + " })";
+			call = isVoid ? proceed : "(" + methodType.getReturnType() + ") " + proceed;
+		}
+		lines.add("\t@Override");
+		lines.add(signature.toString());
+		lines.add(isVoid ? "\t\t" + call + ';' : "\t\treturn " + call + ';');
+		lines.add("\t}");
+	}
+
+	private static String toSource(final TypeParameterElement typeParameter) {
+		final List<String> bounds = typeParameter.getBounds().stream()
+				.map(TypeMirror::toString)
+				.filter(bound -> !Object.class.getName().equals(bound))
+				.collect(Collectors.toList());
+		return bounds.isEmpty()
+				? typeParameter.getSimpleName().toString()
+				: typeParameter.getSimpleName() + " extends " + String.join(" & ", bounds);
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.component.aop.weaving;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.component.AopPlugin;
+import io.vertigo.core.node.component.CoreComponent;
+import io.vertigo.core.node.component.aop.Aspect;
+import io.vertigo.core.node.component.aop.AspectMethodInvocation;
+import io.vertigo.core.util.ClassUtil;
+import io.vertigo.core.util.MethodInvoker;
+
+/**
+ * This class implements the aspects with subclasses generated at build time by the AopWeavingProcessor.
+ * No bytecode is generated when the node starts : the woven subclass is loaded and linked to the instance.
+ *
+ * The components with aspects must be compiled with the processor, for instance with maven :
+ * <pre>
+ * &lt;plugin&gt;
+ *   &lt;artifactId&gt;maven-compiler-plugin&lt;/artifactId&gt;
+ *   &lt;configuration&gt;
+ *     &lt;annotationProcessors&gt;
+ *       &lt;annotationProcessor&gt;io.vertigo.core.plugins.component.aop.weaving.AopWeavingProcessor&lt;/annotationProcessor&gt;
+ *     &lt;/annotationProcessors&gt;
+ *     &lt;compilerArgs&gt;
+ *       &lt;arg&gt;-Avertigo.aspectAnnotations=com.app.Transactional,com.app.Secured&lt;/arg&gt;
+ *     &lt;/compilerArgs&gt;
+ *   &lt;/configuration&gt;
+ * &lt;/plugin&gt;
+ * </pre>
+ * where the option lists the aspect annotations of the application (the aspect annotations of vertigo are always supported),
+ * and the node must be configured with BootConfig.builder().withAopEngine(new WovenAopPlugin()).
+ *
+ * Only the methods without aspect are plain calls to the instance.
+ * An advised method still goes through its generic aspect chain : each call allocates an Object[] of its arguments
+ * (primitive arguments and results are boxed), as with the JavassistAopPlugin.
+ *
+ * @author npiedeloup
+ */
+public final class WovenAopPlugin implements AopPlugin {
+	/** Suffix of the woven subclasses. */
+	static final String WOVEN_SUFFIX = "$$Woven";
+
+	/** {@inheritDoc} */
+	@Override
+	public <C extends CoreComponent> C wrap(final C instance, final Map<Method, List<Aspect>> joinPoints) {
+		Assertion.check()
+				.isNotNull(instance)
+				.isNotNull(joinPoints);
+		//-----
+		final C woven = ClassUtil.newInstance(findWovenClass((Class<C>) instance.getClass()));
+		final Set<Method> linkedMethods = new HashSet<>();
+		((WovenComponent) woven).wovenLink(instance, method -> {
+			linkedMethods.add(method);
+			final MethodInvoker invoker = ClassUtil.getProxyInvoker(method);
+			return AspectMethodInvocation.chain(method, joinPoints.getOrDefault(method, Collections.emptyList()), args -> invoker.invoke(instance, args));
+		});
+		Assertion.check()
+				.isTrue(linkedMethods.containsAll(joinPoints.keySet()), "the class {0} has been woven with other aspects, it must be compiled again with the AopWeavingProcessor", instance.getClass().getName());
+		return woven;
+	}
+
+	private static <C> Class<? extends C> findWovenClass(final Class<C> implClass) {
+		try {
+			return (Class<? extends C>) Class.forName(implClass.getName() + WOVEN_SUFFIX, true, implClass.getClassLoader());
+		} catch (final ClassNotFoundException e) {
+			throw WrappedException.wrap(e, "the class {0} has aspects but has not been woven, it must be compiled with the AopWeavingProcessor (its aspect annotations listed by the option " + AopWeavingProcessor.ASPECT_ANNOTATIONS_OPTION + ")", implClass.getName());
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <C extends CoreComponent> C unwrap(final C component) {
+		Assertion.check()
+				.isNotNull(component);
+		// ---
+		if (component instanceof WovenComponent) {
+			// we return the unwrapped instance
+			return (C) ((WovenComponent) component).wovenTarget();
+		}
+		return component;
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.component.aop.weaving;
+
+import java.lang.reflect.Method;
+import java.util.function.Function;
+
+import io.vertigo.core.node.component.aop.AspectMethodInvocation;
+
+/**
+ * Implemented by the subclasses generated at build time by the AopWeavingProcessor.
+ * These methods are only called by the WovenAopPlugin.
+ *
+ * @author npiedeloup
+ */
+public interface WovenComponent {
+
+	/**
+	 * Links the woven instance to its target and to the aspect chains of its advised methods.
+	 * @param target the instance of the component
+	 * @param chains the aspect chain of an advised method
+	 */
+	void wovenLink(Object target, Function<Method, AspectMethodInvocation> chains);
+
+	/**
+	 * @return the instance of the component
+	 */
+	Object wovenTarget();
+}
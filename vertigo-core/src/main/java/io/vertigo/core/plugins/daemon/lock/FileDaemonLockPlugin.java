@@ -0,0 +1,129 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.plugins.daemon.lock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import io.vertigo.core.impl.daemon.DaemonLockPlugin;
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.param.ParamValue;
+
+/**
+ * Daemon locks stored in files : one file per daemon, containing the holder of the lock and the expiration of the lease.
+ * The files are read and written under a file lock, so the nodes must share the directory (a local directory for a single host, a shared file system otherwise).
+ *
+ * @author npiedeloup
+ */
+public final class FileDaemonLockPlugin implements DaemonLockPlugin {
+	//the file locks are held by the JVM : two plugins of the same JVM can't lock the same file at the same time
+	private static final Object JVM_LOCK = new Object();
+
+	private final Path lockDir;
+	private final String holderId = UUID.randomUUID().toString();
+
+	/**
+	 * Constructor.
+	 * @param dirOpt optional param for the directory of the lock files (vertigo-daemons in the temp directory by default)
+	 */
+	@Inject
+	public FileDaemonLockPlugin(@ParamValue("dir") final Optional<String> dirOpt) {
+		Assertion.check().isNotNull(dirOpt);
+		//---
+		lockDir = dirOpt
+				.map(Paths::get)
+				.orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"), "vertigo-daemons"));
+		try {
+			Files.createDirectories(lockDir);
+		} catch (final IOException e) {
+			throw WrappedException.wrap(e, "Can't create the daemon lock directory {0}", lockDir);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean tryLock(final String daemonName, final long leaseMillis) {
+		Assertion.check()
+				.isNotBlank(daemonName)
+				.isTrue(leaseMillis > 0, "lease {0} must be > 0", leaseMillis);
+		//---
+		final long now = System.currentTimeMillis();
+		return update(daemonName, (holder, expiresAtMillis) -> expiresAtMillis <= now, now + leaseMillis);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean renew(final String daemonName, final long leaseMillis) {
+		Assertion.check()
+				.isNotBlank(daemonName)
+				.isTrue(leaseMillis > 0, "lease {0} must be > 0", leaseMillis);
+		//---
+		return update(daemonName, (holder, expiresAtMillis) -> holderId.equals(holder), System.currentTimeMillis() + leaseMillis);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void unlock(final String daemonName, final long keepUntilMillis) {
+		Assertion.check().isNotBlank(daemonName);
+		//---
+		update(daemonName, (holder, expiresAtMillis) -> holderId.equals(holder), keepUntilMillis);
+	}
+
+	@FunctionalInterface
+	private interface LeaseCondition {
+		boolean test(String holder, long expiresAtMillis);
+	}
+
+	private boolean update(final String daemonName, final LeaseCondition condition, final long expiresAtMillis) {
+		final Path lockFile = lockDir.resolve(daemonName + ".lock");
+		synchronized (JVM_LOCK) {
+			try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				final FileLock fileLock = channel.lock();
+				try {
+					final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+					channel.read(buffer, 0);
+					//content : holder expiresAtMillis (an empty file is a free lock)
+					final String[] lease = new String(buffer.array(), StandardCharsets.UTF_8).trim().split(" ");
+					final boolean free = lease.length != 2;
+					if (!condition.test(free ? null : lease[0], free ? 0 : Long.parseLong(lease[1]))) {
+						return false;
+					}
+					channel.truncate(0);
+					channel.write(ByteBuffer.wrap((holderId + ' ' + expiresAtMillis).getBytes(StandardCharsets.UTF_8)), 0);
+					return true;
+				} finally {
+					fileLock.release();
+				}
+			} catch (final IOException e) {
+				throw WrappedException.wrap(e, "Can't lock the daemon {0}", daemonName);
+			}
+		}
+	}
+}
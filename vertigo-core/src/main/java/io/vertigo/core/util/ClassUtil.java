@@ -30,7 +30,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -44,6 +46,19 @@ import io.vertigo.core.lang.WrappedException;
  */
 public final class ClassUtil {
 	private static final Class<?>[] EMPTY_CLAZZ_ARRAY = new Class[0];
+	//invokers by declaring class, a ClassValue doesn't prevent the classes from being unloaded
+	private static final ClassValue<Map<Method, MethodInvoker>> INVOKERS = new ClassValue<>() {
+		@Override
+		protected Map<Method, MethodInvoker> computeValue(final Class<?> declaringClass) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	private static final ClassValue<Map<Method, MethodInvoker>> PROXY_INVOKERS = new ClassValue<>() {
+		@Override
+		protected Map<Method, MethodInvoker> computeValue(final Class<?> declaringClass) {
+			return new ConcurrentHashMap<>();
+		}
+	};
 
 	/**
 	 * Constructor
@@ -198,12 +213,45 @@ public final class ClassUtil {
 				.isNotNull(instance)
 				.isNotNull(method);
 		//-----
+		return getInvoker(method).invoke(instance, args);
+	}
+
+	/**
+	 * Returns the invoker of a method.
+	 * The invoker is built once and cached : it must be preferred to invoke when the same method is called many times.
+	 *
+	 * @param method the method
+	 * @return the invoker of the method
+	 */
+	public static MethodInvoker getInvoker(final Method method) {
+		Assertion.check().isNotNull(method);
+		//-----
+		return INVOKERS.get(method.getDeclaringClass())
+				.computeIfAbsent(method, m -> MethodHandleInvoker.of(m, false));
+	}
+
+	/**
+	 * Returns the invoker of a method called by a proxy (aspects, amplifiers).
+	 * Unlike getInvoker, the checked exceptions declared by the method are rethrown as is,
+	 * so that the caller of the proxy receives them as if the method was called directly.
+	 *
+	 * @param method the method
+	 * @return the invoker of the method
+	 */
+	public static MethodInvoker getProxyInvoker(final Method method) {
+		Assertion.check().isNotNull(method);
+		//-----
+		return PROXY_INVOKERS.get(method.getDeclaringClass())
+				.computeIfAbsent(method, m -> MethodHandleInvoker.of(m, true));
+	}
+
+	static Object invokeReflectively(final Object instance, final Method method, final Object[] args, final boolean proxy) {
 		try {
 			return method.invoke(instance, args);
 		} catch (final IllegalAccessException e) {
 			throw WrappedException.wrap(e, "accès impossible à la méthode : {0} de {1}", method.getName(), method.getDeclaringClass().getName());
 		} catch (final InvocationTargetException e) {
-			throw WrappedException.wrap(e, "Erreur lors de l'appel de la méthode : {0} de {1}", method.getName(), method.getDeclaringClass().getName());
+			throw MethodHandleInvoker.rethrow(method, e.getCause(), proxy);
 		}
 	}
 
@@ -0,0 +1,115 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import io.vertigo.core.lang.Assertion;
+import io.vertigo.core.lang.WrappedException;
+
+/**
+ * MethodInvoker backed by a MethodHandle adapted once to (Object, Object[])Object :
+ * no access check, no varargs copy and no InvocationTargetException per call.
+ * The method is unreflected with the access of this package, the methods out of reach are invoked by reflection.
+ * A proxy invoker rethrows the checked exceptions declared by the method as is, so a component called through its proxy behaves as if it was called directly.
+ *
+ * @author npiedeloup
+ */
+final class MethodHandleInvoker implements MethodInvoker {
+	private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	private final Method method;
+	private final MethodHandle methodHandle;
+	private final boolean proxy;
+
+	private MethodHandleInvoker(final Method method, final MethodHandle methodHandle, final boolean proxy) {
+		this.method = method;
+		this.methodHandle = methodHandle;
+		this.proxy = proxy;
+	}
+
+	/**
+	 * @param method the method
+	 * @param proxy if the checked exceptions declared by the method are rethrown as is (instead of being wrapped)
+	 * @return the invoker of the method
+	 */
+	static MethodInvoker of(final Method method, final boolean proxy) {
+		Assertion.check().isNotNull(method);
+		//-----
+		final int parameterCount = method.getParameterCount();
+		MethodHandle methodHandle;
+		try {
+			methodHandle = MethodHandles.lookup().unreflect(method);
+		} catch (final IllegalAccessException e) {
+			//the method is not accessible from here (not public, not exported...) : the reflection applies its own access rules
+			return (instance, args) -> ClassUtil.invokeReflectively(instance, method, args, proxy);
+		}
+		methodHandle = methodHandle.asFixedArity();
+		if (Modifier.isStatic(method.getModifiers())) {
+			methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+		}
+		methodHandle = methodHandle
+				.asType(MethodType.genericMethodType(parameterCount + 1))
+				.asSpreader(Object[].class, parameterCount)
+				.asType(INVOKER_TYPE);
+		return new MethodHandleInvoker(method, methodHandle, proxy);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object invoke(final Object instance, final Object[] args) {
+		try {
+			return (Object) methodHandle.invokeExact(instance, args);
+		} catch (final Throwable th) {
+			throw rethrow(method, th, proxy);
+		}
+	}
+
+	/**
+	 * Rethrows the exception thrown by a method : the checked exceptions are wrapped,
+	 * unless they are declared by the method and rethrown by a proxy invoker (as is, without being declared by the invoker).
+	 * This method never returns, in spite of the return type.
+	 * @param method the invoked method
+	 * @param th the exception thrown by the method
+	 * @param proxy if the invoker is a proxy invoker
+	 * @return RuntimeException runtime
+	 */
+	static RuntimeException rethrow(final Method method, final Throwable th, final boolean proxy) {
+		if (proxy && th instanceof Exception && !(th instanceof RuntimeException) && isDeclared(method, th)) {
+			throw MethodHandleInvoker.<RuntimeException> sneakyThrow(th);
+		}
+		throw WrappedException.wrap(th, "Erreur lors de l'appel de la méthode : {0} de {1}", method.getName(), method.getDeclaringClass().getName());
+	}
+
+	private static boolean isDeclared(final Method method, final Throwable th) {
+		for (final Class<?> exceptionType : method.getExceptionTypes()) {
+			if (exceptionType.isInstance(th)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static <T extends Throwable> T sneakyThrow(final Throwable th) throws T {
+		throw (T) th;
+	}
+}
@@ -0,0 +1,46 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.util;
+
+/**
+ * Invokes a method, built once from a java.lang.reflect.Method and reused for each call.
+ * Checked exceptions thrown by the method are wrapped in a WrappedException, runtime exceptions and errors are rethrown as is
+ * (the proxy invokers rethrow the checked exceptions declared by the method as is, see ClassUtil.getProxyInvoker).
+ *
+ * @author npiedeloup
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+	/**
+	 * Invokes the method.
+	 * @param instance the instance on which the method is invoked (ignored by static methods)
+	 * @param args the args of the method (may be null if the method has no parameter)
+	 * @return the result, null if the method returns void
+	 */
+	Object invoke(Object instance, Object[] args);
+
+	/**
+	 * Invokes a method without parameter.
+	 * @param instance the instance on which the method is invoked (ignored by static methods)
+	 * @return the result, null if the method returns void
+	 */
+	default Object invoke(final Object instance) {
+		return invoke(instance, null);
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests of the connector which aggregates the processes in memory.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class AggregatorProcessAnalyticsTest extends AbstractTestCaseJU5 {
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAggregatorAnalyticsConnector(Param.of("maxAggregates", 5))
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testPercentiles() {
+		final Instant start = Instant.now();
+		for (int i = 1; i <= 100; i++) {
+			analyticsManager.addProcess(AProcess.builder("search", "/articles", start, start.plusMillis(i))
+					.setMeasure("success", i % 10 == 0 ? 0 : 100)
+					.incMeasure("hits", 2)
+					.build());
+		}
+		//---
+		final List<Metric> metrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "search".equals(metric.getFeature()) && "/articles".equals(metric.getModule()))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(100D, getValue(metrics, "count"));
+		Assertions.assertEquals(0.1D, getValue(metrics, "errorRate"), 0.0001);
+		Assertions.assertEquals(200D, getValue(metrics, "hitsSum"));
+		//the precision of the histogram is about 6%
+		Assertions.assertEquals(50D, getValue(metrics, "p50Millis"), 50 * 0.07);
+		Assertions.assertEquals(95D, getValue(metrics, "p95Millis"), 95 * 0.07);
+		Assertions.assertEquals(99D, getValue(metrics, "p99Millis"), 99 * 0.07);
+		Assertions.assertEquals(100D, getValue(metrics, "maxMillis"));
+	}
+
+	@Test
+	public void testSubProcesses() {
+		analyticsManager.trace("page", "/orders",
+				tracer -> {
+					for (int i = 0; i < 10; i++) {
+						analyticsManager.trace("sql", "select", subTracer -> subTracer.incMeasure("rows", 5));
+					}
+				});
+		//---
+		final List<Metric> metrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "sql".equals(metric.getFeature()) && "select".equals(metric.getModule()))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(10D, getValue(metrics, "count"));
+		Assertions.assertEquals(50D, getValue(metrics, "rowsSum"));
+		Assertions.assertEquals(0D, getValue(metrics, "errorRate"));
+	}
+
+	@Test
+	public void testRollup() {
+		final Instant start = Instant.now();
+		//a rollup of 10 processes lasting 20ms on average, 2 of them failed
+		analyticsManager.addProcess(AProcess.builder("batch", "/rollup", start, start.plusMillis(20))
+				.setMeasure("success", 0)
+				.setMeasure("rollupCount", 10)
+				.setMeasure("rollupFailures", 2)
+				.setMeasure("rollupTotalDurationMillis", 200)
+				.incMeasure("rows", 30)
+				.build());
+		//---
+		final List<Metric> metrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "batch".equals(metric.getFeature()) && "/rollup".equals(metric.getModule()))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(10D, getValue(metrics, "count"));
+		Assertions.assertEquals(0.2D, getValue(metrics, "errorRate"), 0.0001);
+		Assertions.assertEquals(20D, getValue(metrics, "maxMillis"));
+		Assertions.assertEquals(30D, getValue(metrics, "rowsSum"));
+		Assertions.assertTrue(metrics.stream().noneMatch(metric -> metric.getName().startsWith("rollup")));
+	}
+
+	@Test
+	public void testLongerThanHistogramRange() {
+		final Instant start = Instant.now();
+		//the histogram is bounded to 1 hour : a longer process is counted in its last bucket
+		analyticsManager.addProcess(AProcess.builder("batch", "/night", start, start.plusSeconds(3 * 3600)).build());
+		//---
+		final List<Metric> metrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "batch".equals(metric.getFeature()) && "/night".equals(metric.getModule()))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(3 * 3600 * 1000D, getValue(metrics, "maxMillis"));
+		Assertions.assertEquals(3 * 3600 * 1000D, getValue(metrics, "p99Millis"));
+	}
+
+	@Test
+	public void testTooManyNames() {
+		final Instant start = Instant.now();
+		for (int i = 0; i < 20; i++) {
+			analyticsManager.addProcess(AProcess.builder("sql", "select" + i, start, start.plusMillis(1)).build());
+		}
+		//---
+		final List<Metric> metrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "sql".equals(metric.getFeature()) && "count".equals(metric.getName()))
+				.collect(Collectors.toList());
+		//the first 5 names are aggregated separately, the next ones are folded under '*'
+		Assertions.assertEquals(6, metrics.size());
+		Assertions.assertEquals(15D, metrics.stream()
+				.filter(metric -> "*".equals(metric.getModule()))
+				.findFirst()
+				.get()
+				.getValue());
+	}
+
+	private static double getValue(final List<Metric> metrics, final String name) {
+		return metrics.stream()
+				.filter(metric -> name.equals(metric.getName()))
+				.findFirst()
+				.get()
+				.getValue();
+	}
+}
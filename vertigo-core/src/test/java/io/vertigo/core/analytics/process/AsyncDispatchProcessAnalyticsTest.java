@@ -0,0 +1,93 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests of the analytics when processes are dispatched asynchronously to the connectors.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class AsyncDispatchProcessAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAnalytics(
+								Param.of("dispatchQueueSize", 1000),
+								Param.of("dispatchBatchSize", 10),
+								Param.of("dispatchOverflowPolicy", "dropOldest"))
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testAsyncDispatch() throws InterruptedException {
+		TestAProcessConnectorPlugin.reset();
+		for (int i = 0; i < 50; i++) {
+			analyticsManager.trace(
+					TEST_CATEGORY,
+					"/articles",
+					tracer -> tracer.incMeasure("price", 10));
+		}
+		//---
+		for (int i = 0; i < 50 && TestAProcessConnectorPlugin.getCount() < 50; i++) {
+			Thread.sleep(100);
+		}
+		Assertions.assertEquals(50, TestAProcessConnectorPlugin.getCount());
+		Assertions.assertEquals(10D, TestAProcessConnectorPlugin.getLastPrice());
+		//---
+		final List<Metric> dispatchMetrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "analytics".equals(metric.getFeature()))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(50D, getValue(dispatchMetrics, "dispatchedProcesses"));
+		Assertions.assertEquals(0D, getValue(dispatchMetrics, "droppedProcesses"));
+		Assertions.assertEquals(0D, getValue(dispatchMetrics, "failedProcesses"));
+		Assertions.assertEquals(0D, getValue(dispatchMetrics, "pendingProcesses"));
+	}
+
+	private static double getValue(final List<Metric> metrics, final String name) {
+		return metrics.stream()
+				.filter(metric -> name.equals(metric.getName()))
+				.findFirst()
+				.get()
+				.getValue();
+	}
+}
@@ -0,0 +1,107 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Tests of the processes that end when a stage completes.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class AsyncProcessAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testTraceAsync() {
+		TestAProcessConnectorPlugin.reset();
+		final int result = analyticsManager.traceWithReturn(
+				TEST_CATEGORY,
+				"/request",
+				tracer -> analyticsManager.traceAsync(
+						TEST_CATEGORY,
+						"/remoteCall",
+						asyncTracer -> CompletableFuture.supplyAsync(() -> {
+							sleep(50);
+							asyncTracer.incMeasure("rows", 3);
+							return 42;
+						}))
+						.toCompletableFuture()
+						.join());
+		Assertions.assertEquals(42, result);
+		Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		Assertions.assertEquals(1, process.getSubProcesses().size());
+		final AProcess asyncProcess = process.getSubProcesses().get(0);
+		Assertions.assertEquals("/remoteCall", asyncProcess.getName());
+		//the process lasts until the stage completes
+		Assertions.assertTrue(asyncProcess.getDurationMillis() >= 50);
+		Assertions.assertEquals(100D, asyncProcess.getMeasures().get("success"));
+		Assertions.assertEquals(3D, asyncProcess.getMeasures().get("rows"));
+	}
+
+	@Test
+	public void testTraceAsyncFailure() {
+		TestAProcessConnectorPlugin.reset();
+		final CompletableFuture<Integer> future = analyticsManager.traceAsync(
+				TEST_CATEGORY,
+				"/remoteCall",
+				asyncTracer -> CompletableFuture.<Integer> supplyAsync(() -> {
+					throw new IllegalStateException("remote error");
+				}))
+				.toCompletableFuture();
+		Assertions.assertThrows(CompletionException.class, future::join);
+		Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		Assertions.assertEquals(0D, process.getMeasures().get("success"));
+		Assertions.assertEquals(IllegalStateException.class.getName(), process.getTags().get("exception"));
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.analytics.process.data.TestBinaryAnalyticsReceiver;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests of the binary transport of the SocketLoggerAnalyticsConnectorPlugin, with a local stand-in receiver.
+ *
+ * @author npiedeloup
+ */
+public final class BinarySocketProcessAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	private TestBinaryAnalyticsReceiver receiver;
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		try {
+			receiver = new TestBinaryAnalyticsReceiver();
+		} catch (final IOException e) {
+			throw WrappedException.wrap(e);
+		}
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withSocketLoggerAnalyticsConnector(
+								Param.of("appName", "binaryTest"),
+								Param.of("hostName", "localhost"),
+								Param.of("port", receiver.getPort()),
+								Param.of("transport", "binary"),
+								Param.of("maxBatchSize", 5),
+								Param.of("lingerMillis", 20))
+						.build())
+				.build();
+	}
+
+	@Override
+	protected void doAfterTearDown() {
+		try {
+			receiver.close();
+		} catch (final IOException e) {
+			throw WrappedException.wrap(e);
+		}
+	}
+
+	@Test
+	public void testSendProcesses() throws InterruptedException {
+		for (int i = 0; i < 20; i++) {
+			analyticsManager.trace(
+					TEST_CATEGORY,
+					"/articles",
+					tracer -> {
+						tracer.incMeasure("price", 10)
+								.addTag("country", "France");
+						analyticsManager.trace(TEST_CATEGORY, "/stocks", subTracer -> subTracer.incMeasure("quantity", 2));
+					});
+		}
+		//---
+		for (int i = 0; i < 50 && receiver.getEvents().size() < 20; i++) {
+			Thread.sleep(100);
+		}
+		final List<AProcess> processes = receiver.getEvents()
+				.stream()
+				.map(AProcess.class::cast)
+				.collect(Collectors.toList());
+		Assertions.assertEquals(20, processes.size());
+		Assertions.assertEquals("binaryTest", receiver.getAppName());
+		for (final AProcess process : processes) {
+			Assertions.assertEquals(TEST_CATEGORY, process.getCategory());
+			Assertions.assertEquals("/articles", process.getName());
+			Assertions.assertEquals(10D, process.getMeasures().get("price"));
+			Assertions.assertEquals(100D, process.getMeasures().get("success"));
+			Assertions.assertEquals("France", process.getTags().get("country"));
+			Assertions.assertEquals(1, process.getSubProcesses().size());
+			Assertions.assertEquals("/stocks", process.getSubProcesses().get(0).getName());
+			Assertions.assertEquals(2D, process.getSubProcesses().get(0).getMeasures().get("quantity"));
+		}
+	}
+
+	@Test
+	public void testQueueMetrics() throws InterruptedException {
+		for (int i = 0; i < 12; i++) {
+			analyticsManager.trace(TEST_CATEGORY, "/articles", tracer -> tracer.incMeasure("price", 10));
+		}
+		for (int i = 0; i < 50 && receiver.getEvents().size() < 12; i++) {
+			Thread.sleep(100);
+		}
+		Assertions.assertEquals(12, receiver.getEvents().size());
+		//---
+		final List<Metric> queueMetrics = analyticsManager.getMetrics()
+				.stream()
+				.filter(metric -> "socketLogger".equals(metric.getModule()))
+				.collect(Collectors.toList());
+		Assertions.assertEquals(12D, getValue(queueMetrics, "sentEvents"));
+		Assertions.assertEquals(0D, getValue(queueMetrics, "droppedEvents"));
+		Assertions.assertEquals(0D, getValue(queueMetrics, "pendingEvents"));
+	}
+
+	private static double getValue(final List<Metric> metrics, final String name) {
+		return metrics.stream()
+				.filter(metric -> name.equals(metric.getName()))
+				.findFirst()
+				.get()
+				.getValue();
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestBinaryAnalyticsReceiver;
+import io.vertigo.core.node.AutoCloseableNode;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests the flush of the SocketLoggerAnalyticsConnectorPlugin when the node stops.
+ *
+ * @author npiedeloup
+ */
+public final class BinarySocketStopTest {
+
+	@Test
+	public void testFlushOnStop() throws Exception {
+		try (TestBinaryAnalyticsReceiver receiver = new TestBinaryAnalyticsReceiver()) {
+			final NodeConfig nodeConfig = NodeConfig.builder()
+					.withBoot(BootConfig.builder()
+							.withSocketLoggerAnalyticsConnector(
+									Param.of("appName", "binaryTest"),
+									Param.of("hostName", "localhost"),
+									Param.of("port", receiver.getPort()),
+									Param.of("transport", "binary"),
+									Param.of("maxBatchSize", 50),
+									//the events are still waiting in the queue when the node stops
+									Param.of("lingerMillis", 2000))
+							.build())
+					.build();
+			try (AutoCloseableNode node = new AutoCloseableNode(nodeConfig)) {
+				final AnalyticsManager analyticsManager = node.getComponentSpace().resolve(AnalyticsManager.class);
+				for (int i = 0; i < 120; i++) {
+					analyticsManager.trace("test", "/articles", tracer -> tracer.incMeasure("price", 10));
+				}
+			}
+			//---
+			for (int i = 0; i < 50 && receiver.getEvents().size() < 120; i++) {
+				Thread.sleep(100);
+			}
+			Assertions.assertEquals(120, receiver.getEvents().size());
+		}
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.analytics.process.data.TestProcessAnalyticsContextPlugin;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Tests of the analytics when the opened tracers are held by a plugin.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class ContextPluginProcessAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAnalytics()
+						.addPlugin(TestProcessAnalyticsContextPlugin.class)
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testContextPlugin() {
+		TestAProcessConnectorPlugin.reset();
+		TestProcessAnalyticsContextPlugin.reset();
+		analyticsManager.trace(
+				TEST_CATEGORY,
+				"/orders",
+				tracer -> {
+					Assertions.assertSame(tracer, analyticsManager.getCurrentTracer().get());
+					analyticsManager.trace(
+							TEST_CATEGORY,
+							"/articles",
+							subTracer -> analyticsManager.getCurrentTracer().get().incMeasure("weight", 25));
+				});
+		//---
+		Assertions.assertEquals(2, TestProcessAnalyticsContextPlugin.getPushCount());
+		Assertions.assertTrue(analyticsManager.getCurrentTracer().isEmpty());
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		Assertions.assertEquals("/orders", process.getName());
+		Assertions.assertEquals(1, process.getSubProcesses().size());
+		Assertions.assertEquals(25D, process.getSubProcesses().get(0).getMeasures().get("weight"));
+	}
+}
@@ -0,0 +1,121 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Tests of the processes traced by other threads with the context of their parent.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class ContextPropagationAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testExecutor() throws InterruptedException {
+		TestAProcessConnectorPlugin.reset();
+		final ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			analyticsManager.trace(
+					TEST_CATEGORY,
+					"/parallel",
+					tracer -> {
+						final List<Future<?>> futures = new ArrayList<>();
+						for (int i = 0; i < 20; i++) {
+							futures.add(executorService.submit(analyticsManager.captureContext().wrap(
+									() -> analyticsManager.trace(TEST_CATEGORY, "/child", subTracer -> subTracer.incMeasure("rows", 1)))));
+						}
+						futures.forEach(ContextPropagationAnalyticsTest::waitFor);
+					});
+		} finally {
+			executorService.shutdown();
+		}
+		Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		Assertions.assertEquals("/parallel", process.getName());
+		Assertions.assertEquals(20, process.getSubProcesses().size());
+		process.getSubProcesses().forEach(subProcess -> Assertions.assertEquals("/child", subProcess.getName()));
+	}
+
+	@Test
+	public void testLateSubProcess() throws InterruptedException {
+		TestAProcessConnectorPlugin.reset();
+		final ExecutorService executorService = Executors.newSingleThreadExecutor();
+		final CountDownLatch parentClosed = new CountDownLatch(1);
+		try {
+			analyticsManager.trace(
+					TEST_CATEGORY,
+					"/fireAndForget",
+					tracer -> analyticsManager.propagateContext(executorService).execute(() -> {
+						try {
+							parentClosed.await();
+						} catch (final InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						analyticsManager.trace(TEST_CATEGORY, "/late", subTracer -> subTracer.incMeasure("rows", 1));
+					}));
+			parentClosed.countDown();
+		} finally {
+			executorService.shutdown();
+			executorService.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		//the parent was closed : the late process is sent as a root process
+		Assertions.assertEquals(2, TestAProcessConnectorPlugin.getCount());
+		Assertions.assertEquals("/late", TestAProcessConnectorPlugin.getLastProcess().getName());
+	}
+
+	private static void waitFor(final Future<?> future) {
+		try {
+			future.get();
+		} catch (final InterruptedException | ExecutionException e) {
+			throw WrappedException.wrap(e);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests of the limit of sub processes kept by a process.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class MaxSubProcessesAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAnalytics(Param.of("maxSubProcesses", 10))
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testRollup() {
+		TestAProcessConnectorPlugin.reset();
+		analyticsManager.trace(
+				TEST_CATEGORY,
+				"/batch",
+				tracer -> {
+					for (int i = 0; i < 25; i++) {
+						analyticsManager.trace("sql", "/select", subTracer -> subTracer.incMeasure("rows", 2));
+					}
+					for (int i = 0; i < 5; i++) {
+						analyticsManager.trace("sql", "/insert", subTracer -> subTracer.incMeasure("rows", 1));
+					}
+				});
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		//10 sub processes are kept, then the next ones are folded by name
+		Assertions.assertEquals(12, process.getSubProcesses().size());
+		final AProcess selectRollup = process.getSubProcesses().get(10);
+		Assertions.assertEquals("/select", selectRollup.getName());
+		Assertions.assertEquals(15D, selectRollup.getMeasures().get("rollupCount"));
+		Assertions.assertEquals(30D, selectRollup.getMeasures().get("rows"));
+		//success is not summed
+		Assertions.assertEquals(100D, selectRollup.getMeasures().get("success"));
+		Assertions.assertEquals(0D, selectRollup.getMeasures().get("rollupFailures"));
+		//the rollup lasts the mean duration of the folded processes
+		Assertions.assertTrue(selectRollup.getDurationMillis() <= selectRollup.getMeasures().get("rollupMaxDurationMillis"));
+		Assertions.assertTrue(selectRollup.getMeasures().get("rollupMinDurationMillis") <= selectRollup.getMeasures().get("rollupMaxDurationMillis"));
+		final AProcess insertRollup = process.getSubProcesses().get(11);
+		Assertions.assertEquals("/insert", insertRollup.getName());
+		Assertions.assertEquals(5D, insertRollup.getMeasures().get("rollupCount"));
+		Assertions.assertEquals(5D, insertRollup.getMeasures().get("rows"));
+	}
+
+	@Test
+	public void testRollupFailures() {
+		TestAProcessConnectorPlugin.reset();
+		analyticsManager.trace(
+				TEST_CATEGORY,
+				"/batch",
+				tracer -> {
+					for (int i = 0; i < 20; i++) {
+						final boolean failed = i == 15;
+						try {
+							analyticsManager.trace("sql", "/select", subTracer -> {
+								if (failed) {
+									throw new IllegalStateException("failed");
+								}
+							});
+						} catch (final IllegalStateException e) {
+							//the failure is traced
+						}
+					}
+				});
+		final AProcess rollup = TestAProcessConnectorPlugin.getLastProcess().getSubProcesses().get(10);
+		Assertions.assertEquals(10D, rollup.getMeasures().get("rollupCount"));
+		Assertions.assertEquals(1D, rollup.getMeasures().get("rollupFailures"));
+		Assertions.assertEquals(0D, rollup.getMeasures().get("success"));
+	}
+}
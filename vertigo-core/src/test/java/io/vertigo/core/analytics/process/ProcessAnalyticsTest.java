@@ -17,6 +17,8 @@
  */
 package io.vertigo.core.analytics.process;
 
+import java.time.Instant;
+
 import javax.inject.Inject;
 
 import org.apache.logging.log4j.LogManager;
@@ -24,6 +26,8 @@ import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import com.google.gson.Gson;
+
 import io.vertigo.core.AbstractTestCaseJU5;
 import io.vertigo.core.analytics.AnalyticsManager;
 import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
@@ -125,6 +129,38 @@ public final class ProcessAnalyticsTest extends AbstractTestCaseJU5 {
 		Assertions.assertEquals("test", TestAProcessConnectorPlugin.getLastcategory());
 	}
 
+	@Test
+	public void testDurationNanos() {
+		TestAProcessConnectorPlugin.reset();
+		analyticsManager.trace(
+				TEST_CATEGORY,
+				"/fast",
+				tracer -> tracer.incMeasure(PRICE, 1));
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		//even a sub-millisecond process has a duration
+		Assertions.assertTrue(process.getDurationNanos() > 0);
+		Assertions.assertEquals(process.getDurationNanos() / 1_000_000, process.getDurationMillis());
+		//---
+		final Instant start = Instant.now();
+		final AProcess explicitProcess = AProcess.builder(TEST_CATEGORY, "/explicit", start, start.plusMillis(3)).build();
+		Assertions.assertEquals(3_000_000L, explicitProcess.getDurationNanos());
+		Assertions.assertEquals(3L, explicitProcess.getDurationMillis());
+	}
+
+	@Test
+	public void testDurationNanosNotSerialized() {
+		final Instant start = Instant.now();
+		final AProcess process = AProcess.builder(TEST_CATEGORY, "/json", start, start.plusMillis(3)).build();
+		final Gson gson = new Gson();
+		final String json = gson.toJson(process);
+		//the json payload is the same as before the nano duration
+		Assertions.assertFalse(json.contains("durationNanos"));
+		//the duration of a deserialized process is computed from its timestamps
+		final AProcess deserializedProcess = gson.fromJson(json, AProcess.class);
+		Assertions.assertEquals(3L, deserializedProcess.getDurationMillis());
+		Assertions.assertEquals(3_000_000L, deserializedProcess.getDurationNanos());
+	}
+
 	@Test
 	public void testConnectors() {
 		TestAProcessConnectorPlugin.reset();
@@ -0,0 +1,110 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests of the analytics when tracers are recycled.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class RecycledProcessAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String TEST_CATEGORY = "test";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAnalytics(Param.of("recycleTracers", "true"))
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testRecycledTracers() {
+		for (int i = 0; i < 10; i++) {
+			TestAProcessConnectorPlugin.reset();
+			final int loop = i;
+			analyticsManager.trace(
+					TEST_CATEGORY,
+					"/orders",
+					tracer -> {
+						tracer.incMeasure("price", 10)
+								.addTag("loop", String.valueOf(loop));
+						analyticsManager.trace(
+								TEST_CATEGORY,
+								"/articles",
+								subTracer -> subTracer.incMeasure("weight", 25));
+						analyticsManager.trace(
+								TEST_CATEGORY,
+								"/articles",
+								subTracer -> subTracer.incMeasure("weight", 25));
+					});
+			//---
+			final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+			Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+			Assertions.assertEquals("/orders", process.getName());
+			Assertions.assertEquals(10D, process.getMeasures().get("price"));
+			Assertions.assertEquals(100D, process.getMeasures().get("success"));
+			Assertions.assertEquals(String.valueOf(loop), process.getTags().get("loop"));
+			Assertions.assertEquals(2, process.getSubProcesses().size());
+			for (final AProcess subProcess : process.getSubProcesses()) {
+				Assertions.assertEquals("/articles", subProcess.getName());
+				Assertions.assertEquals(25D, subProcess.getMeasures().get("weight"));
+				Assertions.assertNull(subProcess.getMeasures().get("price"));
+				Assertions.assertTrue(subProcess.getTags().isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testRecycledTracerAfterFailure() {
+		TestAProcessConnectorPlugin.reset();
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> analyticsManager.trace(
+						TEST_CATEGORY,
+						"/fail",
+						tracer -> {
+							throw new IllegalStateException();
+						}));
+		Assertions.assertEquals(0D, TestAProcessConnectorPlugin.getLastProcess().getMeasures().get("success"));
+		Assertions.assertEquals(IllegalStateException.class.getName(), TestAProcessConnectorPlugin.getLastProcess().getTags().get("exception"));
+		//---
+		analyticsManager.trace(
+				TEST_CATEGORY,
+				"/succeed",
+				tracer -> tracer.incMeasure("price", 10));
+		Assertions.assertEquals(100D, TestAProcessConnectorPlugin.getLastProcess().getMeasures().get("success"));
+		Assertions.assertNull(TestAProcessConnectorPlugin.getLastProcess().getTags().get("exception"));
+	}
+}
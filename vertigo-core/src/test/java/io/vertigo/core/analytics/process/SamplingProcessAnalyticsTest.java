@@ -0,0 +1,139 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.process.data.TestAProcessConnectorPlugin;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * Tests of the sampling of processes.
+ *
+ * @author pchretien, npiedeloup
+ */
+public final class SamplingProcessAnalyticsTest extends AbstractTestCaseJU5 {
+	private static final String SAMPLED_CATEGORY = "sampled";
+	private static final String SQL_CATEGORY = "sql";
+
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAnalytics(
+								Param.of("samplingRates", SAMPLED_CATEGORY + ":0," + SQL_CATEGORY + ":0"),
+								Param.of("samplingKeepSlowerThanMillis", 50))
+						.addAnalyticsConnectorPlugin(TestAProcessConnectorPlugin.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testSampledOut() {
+		TestAProcessConnectorPlugin.reset();
+		for (int i = 0; i < 100; i++) {
+			analyticsManager.trace(
+					SAMPLED_CATEGORY,
+					"/fast",
+					tracer -> tracer.incMeasure("price", 10));
+		}
+		Assertions.assertEquals(0, TestAProcessConnectorPlugin.getCount());
+	}
+
+	@Test
+	public void testNotSampledCategory() {
+		TestAProcessConnectorPlugin.reset();
+		for (int i = 0; i < 100; i++) {
+			analyticsManager.trace(
+					"test",
+					"/fast",
+					tracer -> tracer.incMeasure("price", 10));
+		}
+		Assertions.assertEquals(100, TestAProcessConnectorPlugin.getCount());
+	}
+
+	@Test
+	public void testFailureKeptWithoutItsSubProcesses() {
+		TestAProcessConnectorPlugin.reset();
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> analyticsManager.trace(
+						SAMPLED_CATEGORY,
+						"/fail",
+						tracer -> {
+							analyticsManager.trace(SAMPLED_CATEGORY, "/sub", subTracer -> subTracer.incMeasure("price", 10));
+							throw new IllegalStateException();
+						}));
+		Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+		Assertions.assertEquals("/fail", TestAProcessConnectorPlugin.getLastProcess().getName());
+		//the root process has been sampled out when it started : its sub processes have not been built
+		Assertions.assertEquals(0, TestAProcessConnectorPlugin.getLastProcess().getSubProcesses().size());
+	}
+
+	@Test
+	public void testSampledOutSubProcesses() {
+		TestAProcessConnectorPlugin.reset();
+		analyticsManager.trace(
+				"test",
+				"/page",
+				tracer -> {
+					for (int i = 0; i < 10; i++) {
+						analyticsManager.trace(SQL_CATEGORY, "/select", subTracer -> subTracer.incMeasure("rows", 10));
+					}
+					Assertions.assertThrows(IllegalStateException.class,
+							() -> analyticsManager.trace(SQL_CATEGORY, "/update", subTracer -> {
+								throw new IllegalStateException();
+							}));
+					analyticsManager.trace("test", "/service", subTracer -> subTracer.incMeasure("price", 10));
+				});
+		Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+		final AProcess process = TestAProcessConnectorPlugin.getLastProcess();
+		Assertions.assertEquals("/page", process.getName());
+		//the fast sql sub processes are sampled out, the failed one is kept as well as the sub process of a category that is not sampled
+		Assertions.assertEquals(2, process.getSubProcesses().size());
+		Assertions.assertEquals("/update", process.getSubProcesses().get(0).getName());
+		Assertions.assertEquals("/service", process.getSubProcesses().get(1).getName());
+	}
+
+	@Test
+	public void testSlowKept() {
+		TestAProcessConnectorPlugin.reset();
+		analyticsManager.trace(
+				SAMPLED_CATEGORY,
+				"/slow",
+				tracer -> {
+					try {
+						Thread.sleep(100);
+					} catch (final InterruptedException e) {
+						throw WrappedException.wrap(e);
+					}
+				});
+		Assertions.assertEquals(1, TestAProcessConnectorPlugin.getCount());
+		Assertions.assertEquals("/slow", TestAProcessConnectorPlugin.getLastProcess().getName());
+	}
+}
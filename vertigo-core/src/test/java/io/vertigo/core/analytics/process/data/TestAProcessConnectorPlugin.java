@@ -23,15 +23,17 @@ import io.vertigo.core.analytics.process.AProcess;
 import io.vertigo.core.impl.analytics.AnalyticsConnectorPlugin;
 
 public class TestAProcessConnectorPlugin implements AnalyticsConnectorPlugin {
-	private static int count = 0;
-	private static String lastCategory;
-	private static Double lastPrice;
+	private static volatile int count = 0;
+	private static volatile String lastCategory;
+	private static volatile Double lastPrice;
+	private static volatile AProcess lastProcess;
 
 	@Override
 	public void add(final AProcess process) {
 		count++;
 		lastCategory = process.getCategory();
 		lastPrice = process.getMeasures().get("price");
+		lastProcess = process;
 	}
 
 	@Override
@@ -58,10 +60,15 @@ public class TestAProcessConnectorPlugin implements AnalyticsConnectorPlugin {
 		count = 0;
 		lastCategory = null;
 		lastPrice = null;
+		lastProcess = null;
 	}
 
 	public static Double getLastPrice() {
 		return lastPrice;
 	}
 
+	public static AProcess getLastProcess() {
+		return lastProcess;
+	}
+
 }
@@ -0,0 +1,99 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process.data;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import io.vertigo.core.plugins.analytics.log.BinaryAnalyticsDecoder;
+
+/**
+ * Local stand-in of the analytics server : decodes the binary frames sent by the SocketLoggerAnalyticsConnectorPlugin.
+ *
+ * @author npiedeloup
+ */
+public final class TestBinaryAnalyticsReceiver implements AutoCloseable {
+	private final ServerSocketChannel serverChannel;
+	private final Thread acceptThread;
+	private final List<Object> events = new CopyOnWriteArrayList<>();
+	private volatile String appName;
+
+	public TestBinaryAnalyticsReceiver() throws IOException {
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress("localhost", 0));
+		acceptThread = new Thread(this::acceptConnections, "test-analytics-receiver");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	public int getPort() {
+		return serverChannel.socket().getLocalPort();
+	}
+
+	public String getAppName() {
+		return appName;
+	}
+
+	public List<Object> getEvents() {
+		return new ArrayList<>(events);
+	}
+
+	private void acceptConnections() {
+		while (serverChannel.isOpen()) {
+			try (SocketChannel channel = serverChannel.accept()) {
+				//one decoder per connection since strings are interned per connection
+				final BinaryAnalyticsDecoder decoder = new BinaryAnalyticsDecoder();
+				final ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+				while (readFully(channel, lengthBuffer)) {
+					lengthBuffer.flip();
+					final ByteBuffer payload = ByteBuffer.allocate(lengthBuffer.getInt());
+					lengthBuffer.clear();
+					if (!readFully(channel, payload)) {
+						break;
+					}
+					payload.flip();
+					final BinaryAnalyticsDecoder.Frame frame = decoder.decode(payload);
+					appName = frame.getAppName();
+					events.addAll(frame.getEvents());
+				}
+			} catch (final IOException e) {
+				//server closed
+			}
+		}
+	}
+
+	private static boolean readFully(final SocketChannel channel, final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverChannel.close();
+	}
+}
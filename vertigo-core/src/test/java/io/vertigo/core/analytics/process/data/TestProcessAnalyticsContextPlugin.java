@@ -0,0 +1,64 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.analytics.process.data;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertigo.core.analytics.process.ProcessAnalyticsTracer;
+import io.vertigo.core.impl.analytics.ProcessAnalyticsContextPlugin;
+
+/**
+ * Context of tracers which counts the opened tracers.
+ *
+ * @author npiedeloup
+ */
+public final class TestProcessAnalyticsContextPlugin implements ProcessAnalyticsContextPlugin {
+	private static final AtomicInteger PUSH_COUNT = new AtomicInteger();
+	private final ThreadLocal<Deque<ProcessAnalyticsTracer>> threadLocalTracers = ThreadLocal.withInitial(ArrayDeque::new);
+
+	public static void reset() {
+		PUSH_COUNT.set(0);
+	}
+
+	public static int getPushCount() {
+		return PUSH_COUNT.get();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ProcessAnalyticsTracer peek() {
+		return threadLocalTracers.get().peekFirst();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void push(final ProcessAnalyticsTracer tracer) {
+		PUSH_COUNT.incrementAndGet();
+		threadLocalTracers.get().addFirst(tracer);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ProcessAnalyticsTracer pop() {
+		final Deque<ProcessAnalyticsTracer> tracers = threadLocalTracers.get();
+		tracers.removeFirst();
+		return tracers.peekFirst();
+	}
+}
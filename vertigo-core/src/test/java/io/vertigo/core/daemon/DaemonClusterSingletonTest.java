@@ -0,0 +1,104 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.lang.WrappedException;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+import io.vertigo.core.plugins.daemon.lock.FileDaemonLockPlugin;
+
+/**
+ * Tests the cluster-singleton daemons : another node is simulated by another lock plugin on the same directory.
+ */
+public final class DaemonClusterSingletonTest extends AbstractTestCaseJU5 {
+
+	@Inject
+	private SingletonDaemonsComponent singletonDaemonsComponent;
+
+	private Path lockDir;
+	private FileDaemonLockPlugin otherNode;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		try {
+			lockDir = Files.createTempDirectory("vertigo-daemons");
+		} catch (final Exception e) {
+			throw WrappedException.wrap(e);
+		}
+		//the other node holds the lock for 2s
+		otherNode = new FileDaemonLockPlugin(Optional.of(lockDir.toString()));
+		assertTrue(otherNode.tryLock("DmnSingleton", 2000));
+		//---
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withFileDaemonLock(Param.of("dir", lockDir.toString()))
+						.build())
+				.addModule(ModuleConfig.builder("myApp")
+						.addComponent(SingletonDaemonsComponent.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testSingleton() throws Exception {
+		Thread.sleep(1500);
+		assertEquals(0, singletonDaemonsComponent.getExecutionCount());
+		//the lease of the other node has expired
+		Thread.sleep(2000);
+		assertTrue(singletonDaemonsComponent.getExecutionCount() >= 1);
+	}
+
+	@Test
+	public void testLeaseRenewal() throws Exception {
+		Thread.sleep(3500);
+		//the lease of the running node has been renewed
+		assertFalse(otherNode.tryLock("DmnSlowSingleton", 1000));
+		assertEquals(1, singletonDaemonsComponent.getSlowExecutionCount());
+	}
+
+	@Test
+	public void testLocks() {
+		final FileDaemonLockPlugin node1 = new FileDaemonLockPlugin(Optional.of(lockDir.toString()));
+		final FileDaemonLockPlugin node2 = new FileDaemonLockPlugin(Optional.of(lockDir.toString()));
+		assertTrue(node1.tryLock("DmnTest", 60_000));
+		assertFalse(node2.tryLock("DmnTest", 60_000));
+		//only the holder can release the lock
+		node2.unlock("DmnTest", 0);
+		assertFalse(node2.tryLock("DmnTest", 60_000));
+		assertTrue(node1.renew("DmnTest", 60_000));
+		assertFalse(node2.renew("DmnTest", 60_000));
+		node1.unlock("DmnTest", 0);
+		assertTrue(node2.tryLock("DmnTest", 60_000));
+		assertFalse(node1.tryLock("DmnTest", 60_000));
+	}
+}
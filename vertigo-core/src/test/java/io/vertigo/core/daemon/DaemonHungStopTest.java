@@ -0,0 +1,50 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.node.AutoCloseableNode;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Tests the stop of a node while a daemon is hung.
+ */
+public final class DaemonHungStopTest {
+
+	@Test
+	public void testStopWhileHung() throws Exception {
+		final NodeConfig nodeConfig = NodeConfig.builder()
+				.addModule(ModuleConfig.builder("myApp")
+						.addComponent(TimeoutDaemonsComponent.class)
+						.build())
+				.build();
+		final long stopStart;
+		try (AutoCloseableNode node = new AutoCloseableNode(nodeConfig)) {
+			//the hung daemon is running
+			Thread.sleep(300);
+			stopStart = System.currentTimeMillis();
+		}
+		//the stop waits for the hung run until its timeout (1s), not until its end (60s)
+		final long stopMillis = System.currentTimeMillis() - stopStart;
+		assertTrue(stopMillis < 5000, "stop duration : " + stopMillis);
+	}
+}
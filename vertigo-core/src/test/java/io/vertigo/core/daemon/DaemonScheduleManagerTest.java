@@ -0,0 +1,66 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Tests the cron and fixed rate daemons.
+ */
+public final class DaemonScheduleManagerTest extends AbstractTestCaseJU5 {
+
+	@Inject
+	private ScheduledDaemonsComponent scheduledDaemonsComponent;
+	@Inject
+	private DaemonManager daemonManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.addModule(ModuleConfig.builder("myApp")
+						.addComponent(ScheduledDaemonsComponent.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testSchedules() throws Exception {
+		//fixed rate : runs at 0s and 2s (1s is skipped)
+		Thread.sleep(3300);
+		final int cronExecutions = scheduledDaemonsComponent.getCronExecutionCount();
+		assertTrue(cronExecutions >= 2 && cronExecutions <= 4, "cron executions : " + cronExecutions);
+		final int fixedRateExecutions = scheduledDaemonsComponent.getFixedRateExecutionCount();
+		assertTrue(fixedRateExecutions >= 2 && fixedRateExecutions <= 3, "fixed rate executions : " + fixedRateExecutions);
+		assertEquals(1, scheduledDaemonsComponent.getMaxRunningCount());
+		final DaemonStat fixedRateStat = daemonManager.getStats().stream()
+				.filter(stat -> "DmnFixedRate".equals(stat.getDaemonName()))
+				.findFirst()
+				.get();
+		assertTrue(fixedRateStat.getMissed() >= 1, "missed : " + fixedRateStat.getMissed());
+		assertTrue(fixedRateStat.getMaxDurationMillis() >= 1400, "max duration : " + fixedRateStat.getMaxDurationMillis());
+	}
+}
@@ -0,0 +1,94 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.daemon.definitions.DaemonSchedule;
+
+/**
+ * Tests the cron expressions of the daemon schedules.
+ */
+public final class DaemonScheduleTest {
+
+	private static Instant at(final int year, final int month, final int day, final int hour, final int minute, final int second) {
+		return LocalDateTime.of(year, month, day, hour, minute, second).atZone(ZoneId.systemDefault()).toInstant();
+	}
+
+	private static void assertNext(final String cron, final Instant after, final Instant expected) {
+		assertEquals(expected, DaemonSchedule.ofCron(cron).nextCronExecution(after));
+	}
+
+	@Test
+	public void testEveryMinute() {
+		//2020-03-10 is a tuesday
+		assertNext("* * * * *", at(2020, 3, 10, 12, 30, 15), at(2020, 3, 10, 12, 31, 0));
+		assertNext("* * * * *", at(2020, 3, 10, 12, 30, 0), at(2020, 3, 10, 12, 31, 0));
+		assertNext("*/10 * * * * *", at(2020, 3, 10, 12, 30, 15), at(2020, 3, 10, 12, 30, 20));
+	}
+
+	@Test
+	public void testRangesAndLists() {
+		assertNext("0 2 * * *", at(2020, 3, 10, 12, 30, 15), at(2020, 3, 11, 2, 0, 0));
+		assertNext("15,45 8-18/2 * * *", at(2020, 3, 10, 12, 30, 15), at(2020, 3, 10, 12, 45, 0));
+		assertNext("15,45 8-18/2 * * *", at(2020, 3, 10, 18, 50, 0), at(2020, 3, 11, 8, 15, 0));
+		assertNext("0 0 1 JAN *", at(2020, 3, 10, 12, 30, 15), at(2021, 1, 1, 0, 0, 0));
+		assertNext("0 0 31 * *", at(2020, 4, 1, 0, 0, 0), at(2020, 5, 31, 0, 0, 0));
+		assertNext("0 0 29 2 *", at(2021, 1, 1, 0, 0, 0), at(2024, 2, 29, 0, 0, 0));
+	}
+
+	@Test
+	public void testDaysOfWeek() {
+		assertNext("0 9 * * MON-FRI", at(2020, 3, 13, 10, 0, 0), at(2020, 3, 16, 9, 0, 0));
+		assertNext("0 9 * * 0", at(2020, 3, 10, 10, 0, 0), at(2020, 3, 15, 9, 0, 0));
+		assertNext("0 9 * * 7", at(2020, 3, 10, 10, 0, 0), at(2020, 3, 15, 9, 0, 0));
+		//day of month or day of week
+		assertNext("0 9 20 * SUN", at(2020, 3, 16, 10, 0, 0), at(2020, 3, 20, 9, 0, 0));
+	}
+
+	@Test
+	public void testInvalidCron() {
+		assertThrows(IllegalStateException.class, () -> DaemonSchedule.ofCron("* * * *"));
+		assertThrows(IllegalStateException.class, () -> DaemonSchedule.ofCron("60 * * * *"));
+		assertThrows(IllegalStateException.class, () -> DaemonSchedule.ofCron("*/0 * * * *"));
+		assertThrows(IllegalArgumentException.class, () -> DaemonSchedule.ofCron("a * * * *"));
+		assertThrows(IllegalStateException.class, () -> DaemonSchedule.ofCron("0 0 30 2 *"));
+	}
+
+	@Test
+	public void testSchedules() {
+		final DaemonSchedule fixedDelay = DaemonSchedule.ofFixedDelay(60);
+		assertEquals(DaemonSchedule.Mode.fixedDelay, fixedDelay.getMode());
+		assertEquals(60, fixedDelay.getInitialDelayInSeconds());
+		final DaemonSchedule fixedRate = DaemonSchedule.ofFixedRate(60).withInitialDelay(0).withJitter(10);
+		assertEquals(DaemonSchedule.Mode.fixedRate, fixedRate.getMode());
+		assertEquals(0, fixedRate.getInitialDelayInSeconds());
+		assertEquals(10, fixedRate.getJitterInSeconds());
+		assertTrue(fixedRate.getCron().isEmpty());
+		assertThrows(IllegalStateException.class, () -> fixedDelay.nextCronExecution(Instant.now()));
+		assertThrows(IllegalStateException.class, () -> DaemonSchedule.ofFixedRate(0));
+	}
+}
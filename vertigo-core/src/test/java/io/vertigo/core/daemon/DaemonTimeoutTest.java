@@ -0,0 +1,86 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.analytics.AnalyticsManager;
+import io.vertigo.core.analytics.metric.Metric;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+
+/**
+ * Tests the timeout and the execution stats of the daemons.
+ */
+public final class DaemonTimeoutTest extends AbstractTestCaseJU5 {
+
+	@Inject
+	private TimeoutDaemonsComponent timeoutDaemonsComponent;
+	@Inject
+	private DaemonManager daemonManager;
+	@Inject
+	private AnalyticsManager analyticsManager;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.addModule(ModuleConfig.builder("myApp")
+						.addComponent(TimeoutDaemonsComponent.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		//runs at 0s, interrupted at 1s, runs again at 2s
+		Thread.sleep(2500);
+		assertTrue(timeoutDaemonsComponent.getInterruptionCount() >= 1);
+		final DaemonStat daemonStat = daemonManager.getStats().stream()
+				.filter(stat -> "DmnHung".equals(stat.getDaemonName()))
+				.findFirst()
+				.get();
+		assertTrue(daemonStat.getTimeouts() >= 1);
+		assertEquals(daemonStat.getCount(), daemonStat.getFailures());
+		assertFalse(daemonStat.isLastExecSuccess());
+		assertTrue(daemonStat.getMaxDurationMillis() >= 900 && daemonStat.getMaxDurationMillis() < 5000, "max duration : " + daemonStat.getMaxDurationMillis());
+		assertTrue(daemonStat.getAvgDurationMillis() >= 900, "avg duration : " + daemonStat.getAvgDurationMillis());
+		//---
+		final List<Metric> daemonMetrics = analyticsManager.getMetrics().stream()
+				.filter(metric -> "DmnHung".equals(metric.getModule()))
+				.collect(Collectors.toList());
+		//---
+		final DaemonStat inTimeStat = daemonManager.getStats().stream()
+				.filter(stat -> "DmnInTime".equals(stat.getDaemonName()))
+				.findFirst()
+				.get();
+		assertTrue(inTimeStat.getSuccesses() >= 2);
+		assertEquals(0, inTimeStat.getTimeouts());
+		assertEquals(0, timeoutDaemonsComponent.getInterruptedStartCount());
+		assertTrue(daemonMetrics.stream().anyMatch(metric -> "timeouts".equals(metric.getName()) && metric.getValue() >= 1));
+	}
+}
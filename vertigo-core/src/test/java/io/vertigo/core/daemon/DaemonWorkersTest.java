@@ -0,0 +1,58 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.inject.Inject;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.param.Param;
+
+/**
+ * The slow daemons must not delay the other ones.
+ */
+public final class DaemonWorkersTest extends AbstractTestCaseJU5 {
+
+	@Inject
+	private SlowDaemonsComponent slowDaemonsComponent;
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withDaemons(Param.of("maxWorkers", 3))
+						.build())
+				.addModule(ModuleConfig.builder("myApp")
+						.addComponent(SlowDaemonsComponent.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public void testSlowDaemons() throws Exception {
+		//the slow daemons run from 1s to 3.5s
+		Thread.sleep(3200);
+		assertTrue(slowDaemonsComponent.getFastExecutionCount() >= 2, "fast daemon executions : " + slowDaemonsComponent.getFastExecutionCount());
+	}
+}
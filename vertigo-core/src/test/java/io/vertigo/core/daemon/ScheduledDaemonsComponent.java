@@ -0,0 +1,58 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertigo.core.node.component.Component;
+
+public class ScheduledDaemonsComponent implements Component {
+	private final AtomicInteger cronExecutions = new AtomicInteger();
+	private final AtomicInteger fixedRateExecutions = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	public int getCronExecutionCount() {
+		return cronExecutions.get();
+	}
+
+	public int getFixedRateExecutionCount() {
+		return fixedRateExecutions.get();
+	}
+
+	public int getMaxRunningCount() {
+		return maxRunning.get();
+	}
+
+	@DaemonScheduled(name = "DmnEverySecond", cron = "* * * * * *")
+	public void everySecond() {
+		cronExecutions.incrementAndGet();
+	}
+
+	@DaemonScheduled(name = "DmnFixedRate", periodInSeconds = 1, fixedRate = true, initialDelayInSeconds = 0)
+	public void fixedRate() throws InterruptedException {
+		fixedRateExecutions.incrementAndGet();
+		maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+		try {
+			//longer than the period : the next execution is skipped
+			Thread.sleep(1500);
+		} finally {
+			running.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertigo.core.node.component.Component;
+
+public class SingletonDaemonsComponent implements Component {
+	private final AtomicInteger executions = new AtomicInteger();
+	private final AtomicInteger slowExecutions = new AtomicInteger();
+
+	public int getExecutionCount() {
+		return executions.get();
+	}
+
+	public int getSlowExecutionCount() {
+		return slowExecutions.get();
+	}
+
+	@DaemonScheduled(name = "DmnSlowSingleton", periodInSeconds = 1, fixedRate = true, initialDelayInSeconds = 0, clusterSingleton = true)
+	public void slowSingleton() throws InterruptedException {
+		slowExecutions.incrementAndGet();
+		//longer than the lease (3s) : the lease must be renewed
+		Thread.sleep(4000);
+	}
+
+	@DaemonScheduled(name = "DmnSingleton", periodInSeconds = 1, fixedRate = true, initialDelayInSeconds = 0, clusterSingleton = true)
+	public void singleton() {
+		executions.incrementAndGet();
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertigo.core.node.component.Component;
+
+public class SlowDaemonsComponent implements Component {
+	private final AtomicInteger fastExecutions = new AtomicInteger();
+
+	public int getFastExecutionCount() {
+		return fastExecutions.get();
+	}
+
+	@DaemonScheduled(name = "DmnSlow1", periodInSeconds = 1)
+	public void slow1() throws InterruptedException {
+		Thread.sleep(2500);
+	}
+
+	@DaemonScheduled(name = "DmnSlow2", periodInSeconds = 1)
+	public void slow2() throws InterruptedException {
+		Thread.sleep(2500);
+	}
+
+	@DaemonScheduled(name = "DmnFast", periodInSeconds = 1)
+	public void fast() {
+		fastExecutions.incrementAndGet();
+	}
+}
@@ -0,0 +1,54 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.daemon;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.vertigo.core.node.component.Component;
+
+public class TimeoutDaemonsComponent implements Component {
+	private final AtomicInteger interruptions = new AtomicInteger();
+	private final AtomicInteger interruptedStarts = new AtomicInteger();
+
+	public int getInterruptionCount() {
+		return interruptions.get();
+	}
+
+	public int getInterruptedStartCount() {
+		return interruptedStarts.get();
+	}
+
+	@DaemonScheduled(name = "DmnInTime", periodInSeconds = 1, initialDelayInSeconds = 0, timeoutInSeconds = 1)
+	public void inTime() {
+		//a run must never start with the interruption of a previous one
+		if (Thread.currentThread().isInterrupted()) {
+			interruptedStarts.incrementAndGet();
+		}
+	}
+
+	@DaemonScheduled(name = "DmnHung", periodInSeconds = 1, initialDelayInSeconds = 0, timeoutInSeconds = 1)
+	public void hung() throws InterruptedException {
+		try {
+			//hung : only the timeout ends the run
+			Thread.sleep(60_000);
+		} catch (final InterruptedException e) {
+			interruptions.incrementAndGet();
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public final class AnalyticsRingBufferTest {
+
+	@Test
+	public void testFifoAndBounds() {
+		final AnalyticsRingBuffer<Integer> ringBuffer = new AnalyticsRingBuffer<>(3);
+		Assertions.assertNull(ringBuffer.poll());
+		//---
+		for (int lap = 0; lap < 5; lap++) {
+			Assertions.assertTrue(ringBuffer.offer(1));
+			Assertions.assertTrue(ringBuffer.offer(2));
+			Assertions.assertTrue(ringBuffer.offer(3));
+			Assertions.assertFalse(ringBuffer.offer(4));
+			Assertions.assertEquals(3, ringBuffer.size());
+			//---
+			Assertions.assertEquals(1, ringBuffer.poll());
+			final List<Integer> drained = new ArrayList<>();
+			Assertions.assertEquals(2, ringBuffer.drainTo(drained, 10));
+			Assertions.assertEquals(List.of(2, 3), drained);
+			Assertions.assertNull(ringBuffer.poll());
+			Assertions.assertEquals(0, ringBuffer.size());
+		}
+	}
+
+	@Test
+	public void testManyProducers() throws InterruptedException {
+		final int producers = 4;
+		final int elementsByProducer = 10_000;
+		final AnalyticsRingBuffer<Integer> ringBuffer = new AnalyticsRingBuffer<>(64);
+		final Set<Integer> received = ConcurrentHashMap.newKeySet();
+		final AtomicInteger duplicates = new AtomicInteger();
+		final CountDownLatch done = new CountDownLatch(producers);
+		//---
+		for (int p = 0; p < producers; p++) {
+			final int offset = p * elementsByProducer;
+			new Thread(() -> {
+				for (int i = 0; i < elementsByProducer; i++) {
+					while (!ringBuffer.offer(offset + i)) {
+						Thread.yield();
+					}
+				}
+				done.countDown();
+			}).start();
+		}
+		final List<Integer> batch = new ArrayList<>();
+		while (received.size() + duplicates.get() < producers * elementsByProducer) {
+			if (ringBuffer.drainTo(batch, 16) == 0) {
+				Thread.yield();
+			}
+			for (final Integer element : batch) {
+				if (!received.add(element)) {
+					duplicates.incrementAndGet();
+				}
+			}
+			batch.clear();
+		}
+		done.await();
+		//---
+		Assertions.assertEquals(0, duplicates.get());
+		Assertions.assertEquals(producers * elementsByProducer, received.size());
+		Assertions.assertNull(ringBuffer.poll());
+	}
+}
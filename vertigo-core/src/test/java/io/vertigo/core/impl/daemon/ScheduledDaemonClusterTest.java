@@ -0,0 +1,81 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.impl.daemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.daemon.Daemon;
+import io.vertigo.core.daemon.definitions.DaemonDefinition;
+import io.vertigo.core.daemon.definitions.DaemonSchedule;
+import io.vertigo.core.plugins.daemon.lock.FileDaemonLockPlugin;
+
+/**
+ * Tests a cluster-singleton daemon scheduled by two nodes which don't start at the same time.
+ */
+public final class ScheduledDaemonClusterTest {
+
+	@Test
+	public void testFixedDelayWithOffsetStarts() throws Exception {
+		final Path lockDir = Files.createTempDirectory("vertigo-daemons");
+		final List<Long> runSlots = Collections.synchronizedList(new ArrayList<>());
+		final Daemon daemon = () -> runSlots.add(System.currentTimeMillis() / 1000);
+		final DaemonDefinition daemonDefinition = new DaemonDefinition("DmnCluster", () -> daemon, DaemonSchedule.ofFixedDelay(1).withInitialDelay(0), 0, true);
+		final ScheduledThreadPoolExecutor node1 = new ScheduledThreadPoolExecutor(2);
+		final ScheduledThreadPoolExecutor node2 = new ScheduledThreadPoolExecutor(2);
+		try {
+			//the first node starts at the beginning of a second, the second node out of phase in the same second
+			Thread.sleep(1100 - System.currentTimeMillis() % 1000);
+			startNode(daemonDefinition, lockDir, node1);
+			Thread.sleep(600);
+			startNode(daemonDefinition, lockDir, node2);
+			Thread.sleep(4000);
+		} finally {
+			node1.shutdownNow();
+			node2.shutdownNow();
+		}
+		//at most one run per slot of 1s in the cluster
+		assertTrue(runSlots.size() >= 3, "runs : " + runSlots);
+		assertEquals(runSlots.size(), new HashSet<>(runSlots).size(), "runs : " + runSlots);
+	}
+
+	private static void startNode(final DaemonDefinition daemonDefinition, final Path lockDir, final ScheduledThreadPoolExecutor executor) {
+		final DaemonListener daemonListener = new DaemonListener(daemonDefinition, false);
+		final Daemon daemon = daemonDefinition.getDaemonSupplier().get();
+		new ScheduledDaemon(
+				daemonDefinition,
+				daemonListener,
+				new DaemonTimerTask(daemonListener, daemon),
+				Optional.of(new FileDaemonLockPlugin(Optional.of(lockDir.toString()))),
+				executor,
+				executor,
+				executor)
+						.start();
+	}
+}
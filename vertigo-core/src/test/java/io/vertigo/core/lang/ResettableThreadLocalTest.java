@@ -0,0 +1,54 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.lang;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public final class ResettableThreadLocalTest {
+
+	@Test
+	public void testResetAll() {
+		final ResettableThreadLocal<List<String>> resettable = ResettableThreadLocal.withInitial(ArrayList::new);
+		final ThreadLocal<List<String>> cache = ThreadLocal.withInitial(ArrayList::new);
+		resettable.get().add("a");
+		final List<String> cached = cache.get();
+		cached.add("a");
+		//---
+		ResettableThreadLocal.resetAll();
+		assertEquals(0, resettable.get().size());
+		assertSame(cached, cache.get());
+		assertEquals(1, cache.get().size());
+	}
+
+	@Test
+	public void testResetCurrentThreadOnly() throws Exception {
+		final ResettableThreadLocal<List<String>> resettable = ResettableThreadLocal.withInitial(ArrayList::new);
+		resettable.get().add("a");
+		//---
+		final Thread thread = new Thread(ResettableThreadLocal::resetAll);
+		thread.start();
+		thread.join();
+		assertEquals(1, resettable.get().size());
+	}
+}
@@ -63,6 +63,13 @@ public class AmplifierTest {
 				.build();
 	}
 
+	@Test
+	public final void testObjectMethods() {
+		assertEquals(aggregatea, aggregatea);
+		assertEquals(aggregatea.hashCode(), aggregatea.hashCode());
+		assertEquals("amplifier of " + Aggregate.class.getName(), aggregatea.toString());
+	}
+
 	@Test
 	public final void testMin() {
 		assertEquals(10, aggregatea.min(12, 10, 55));
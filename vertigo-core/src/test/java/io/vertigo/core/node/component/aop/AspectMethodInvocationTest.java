@@ -0,0 +1,68 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.node.component.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.node.component.aop.data.aspects.OneMore;
+import io.vertigo.core.node.component.aop.data.aspects.OneMoreAspect;
+import io.vertigo.core.node.component.aop.data.aspects.TenMoreAspect;
+import io.vertigo.core.node.component.aop.data.components.ComputerImpl;
+import io.vertigo.core.util.ClassUtil;
+
+public final class AspectMethodInvocationTest {
+	private static final Method SUM = ClassUtil.findMethod(ComputerImpl.class, "sum", int.class, int.class);
+
+	@Test
+	public void testChain() {
+		final AspectMethodInvocation chain = AspectMethodInvocation.chain(SUM, List.of(new TenMoreAspect(), new OneMoreAspect()), args -> (Integer) args[0] + (Integer) args[1]);
+		assertEquals(SUM, chain.getMethod());
+		assertEquals(16, chain.proceed(new Object[] { 2, 3 }));
+		//the chain is reusable
+		assertEquals(17, chain.proceed(new Object[] { 3, 3 }));
+	}
+
+	@Test
+	public void testChainWithoutAspect() {
+		final AspectMethodInvocation chain = AspectMethodInvocation.chain(SUM, List.of(), args -> (Integer) args[0] + (Integer) args[1]);
+		assertEquals(5, chain.proceed(new Object[] { 2, 3 }));
+	}
+
+	@Test
+	public void testReentrantChain() {
+		//an aspect which proceeds twice
+		final Aspect twiceAspect = new Aspect() {
+			@Override
+			public Object invoke(final Object[] args, final AspectMethodInvocation methodInvocation) {
+				return (Integer) methodInvocation.proceed(args) + (Integer) methodInvocation.proceed(args);
+			}
+
+			@Override
+			public Class<OneMore> getAnnotationType() {
+				return OneMore.class;
+			}
+		};
+		final AspectMethodInvocation chain = AspectMethodInvocation.chain(SUM, List.of(twiceAspect, new OneMoreAspect()), args -> (Integer) args[0] + (Integer) args[1]);
+		assertEquals(12, chain.proceed(new Object[] { 2, 3 }));
+	}
+}
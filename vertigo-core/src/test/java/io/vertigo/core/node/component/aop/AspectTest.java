@@ -22,6 +22,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.util.function.Supplier;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -37,6 +40,7 @@ import io.vertigo.core.node.component.aop.data.components.C;
 import io.vertigo.core.node.component.aop.data.components.Computer;
 import io.vertigo.core.node.component.aop.data.components.ComputerImpl;
 import io.vertigo.core.node.component.aop.data.components.F;
+import io.vertigo.core.node.component.aop.data.components.G;
 import io.vertigo.core.node.config.ModuleConfig;
 import io.vertigo.core.node.config.NodeConfig;
 
@@ -58,6 +62,7 @@ public final class AspectTest extends AbstractTestCaseJU5 {
 						.addComponent(B.class, BImpl.class)
 						.addComponent(C.class)
 						.addComponent(F.class)
+						.addComponent(G.class)
 						.build())
 				.build();
 	}
@@ -85,6 +90,23 @@ public final class AspectTest extends AbstractTestCaseJU5 {
 
 	}
 
+	@Test
+	public final void testCheckedExceptionThroughAspects() {
+		final F f = getApp().getComponentSpace().resolve(F.class);
+		//the checked exception declared by the component reaches the caller as is
+		final IOException e = Assertions.assertThrows(IOException.class, () -> f.getCheckedValue(10));
+		assertEquals("no value for 10", e.getMessage());
+	}
+
+	@Test
+	public final void testOneMoreThroughGenericInterface() {
+		final G g = getApp().getComponentSpace().resolve(G.class);
+		assertEquals(11, g.get());
+		//the call goes through the bridge method get() : Object
+		final Supplier<Integer> supplier = g;
+		assertEquals(11, supplier.get());
+	}
+
 	@Test
 	public final void testOneMoreTenMore() {
 		final Computer comp = getApp().getComponentSpace().resolve(Computer.class);
@@ -0,0 +1,93 @@
+/**
+ * vertigo - application development platform
+ *
+ * Copyright (C) 2013-2020, Vertigo.io, team@vertigo.io
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.vertigo.core.node.component.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.vertigo.core.AbstractTestCaseJU5;
+import io.vertigo.core.node.component.AopPlugin;
+import io.vertigo.core.node.component.aop.data.aspects.OneMoreAspect;
+import io.vertigo.core.node.component.aop.data.aspects.TenMoreAspect;
+import io.vertigo.core.node.component.aop.data.components.Computer;
+import io.vertigo.core.node.component.aop.data.components.ComputerImpl;
+import io.vertigo.core.node.component.aop.data.components.F;
+import io.vertigo.core.node.config.BootConfig;
+import io.vertigo.core.node.config.ModuleConfig;
+import io.vertigo.core.node.config.NodeConfig;
+import io.vertigo.core.plugins.component.aop.weaving.WovenAopPlugin;
+import io.vertigo.core.plugins.component.aop.weaving.WovenComponent;
+
+/**
+ * The test components are woven at build time by the AopWeavingProcessor (see the pom).
+ */
+public final class WovenAspectTest extends AbstractTestCaseJU5 {
+
+	@Override
+	protected NodeConfig buildNodeConfig() {
+		return NodeConfig.builder()
+				.withBoot(BootConfig.builder()
+						.withAopEngine(new WovenAopPlugin())
+						.build())
+				.addModule(ModuleConfig.builder("aspects")
+						.addAspect(OneMoreAspect.class)
+						.addAspect(TenMoreAspect.class)
+						.build())
+				.addModule(ModuleConfig.builder("components")
+						.addComponent(Computer.class, ComputerImpl.class)
+						.addComponent(F.class)
+						.build())
+				.build();
+	}
+
+	@Test
+	public final void testNo() {
+		final Computer computer = getApp().getComponentSpace().resolve(Computer.class);
+		assertEquals(66, computer.no(66));
+	}
+
+	@Test
+	public final void testOneMoreOnMethod() {
+		final Computer comp = getApp().getComponentSpace().resolve(Computer.class);
+		assertEquals(6, comp.sum(2, 3));
+	}
+
+	@Test
+	public final void testOneMoreOnClass() {
+		final F f = getApp().getComponentSpace().resolve(F.class);
+		assertEquals(11, f.getValue(10));
+		assertEquals(12, f.getValue2(10));
+		assertEquals(22, f.getValue3(10));
+	}
+
+	@Test
+	public final void testOneMoreTenMore() {
+		final Computer comp = getApp().getComponentSpace().resolve(Computer.class);
+		assertEquals(17, comp.multi(2, 3));
+	}
+
+	@Test
+	public final void testUnwrap() {
+		final AopPlugin aopPlugin = getApp().getNodeConfig().getBootConfig().getAopPlugin();
+		final F f = getApp().getComponentSpace().resolve(F.class);
+		assertTrue(f instanceof WovenComponent);
+		assertEquals(F.class, aopPlugin.unwrap(f).getClass());
+	}
+}
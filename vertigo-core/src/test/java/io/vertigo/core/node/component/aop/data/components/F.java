@@ -17,6 +17,8 @@
  */
 package io.vertigo.core.node.component.aop.data.components;
 
+import java.io.IOException;
+
 import io.vertigo.core.node.component.Component;
 import io.vertigo.core.node.component.aop.data.aspects.OneMore;
 import io.vertigo.core.node.component.aop.data.aspects.TenMore;
@@ -40,4 +42,8 @@ public class F implements Component {
 	public int getValue3(final int value) {
 		return value;
 	}
+
+	public int getCheckedValue(final int value) throws IOException {
+		throw new IOException("no value for " + value);
+	}
 }
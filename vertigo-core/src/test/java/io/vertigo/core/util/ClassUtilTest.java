@@ -22,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
@@ -40,6 +41,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import io.vertigo.core.lang.VUserException;
+import io.vertigo.core.lang.WrappedException;
 import io.vertigo.core.util.data.SA;
 import io.vertigo.core.util.data.SAbstractD;
 import io.vertigo.core.util.data.SAnnotationA;
@@ -280,6 +282,32 @@ public final class ClassUtilTest {
 		});
 	}
 
+	@Test
+	public void testInvoker() {
+		final Method addMethod = ClassUtil.findMethod(MyMath.class, "add", long.class, long.class);
+		final MethodInvoker invoker = ClassUtil.getInvoker(addMethod);
+		assertTrue(invoker == ClassUtil.getInvoker(addMethod));
+		assertEquals(10L, invoker.invoke(new MyMath(), new Object[] { 4L, 6L }));
+		//static and no parameter
+		final Method zeroMethod = ClassUtil.findMethod(MyMath.class, "zero");
+		assertEquals(0L, ClassUtil.getInvoker(zeroMethod).invoke(null));
+	}
+
+	@Test
+	public void testInvokerWithCheckedException() {
+		final Method checkedMethod = ClassUtil.findMethod(MyMath.class, "checked");
+		final WrappedException e = assertThrows(WrappedException.class, () -> ClassUtil.getInvoker(checkedMethod).invoke(new MyMath()));
+		assertTrue(e.unwrap() instanceof IOException);
+	}
+
+	@Test
+	public void testProxyInvokerWithCheckedException() {
+		final Method checkedMethod = ClassUtil.findMethod(MyMath.class, "checked");
+		//the checked exception declared by the method is rethrown as is
+		final IOException e = assertThrows(IOException.class, () -> ClassUtil.getProxyInvoker(checkedMethod).invoke(new MyMath()));
+		assertEquals("test", e.getMessage());
+	}
+
 	@Test
 	public void testGeneric() throws SecurityException, NoSuchFieldException {
 		Field field;
@@ -483,6 +511,14 @@ public final class ClassUtilTest {
 			throw new VUserException("test");
 		}
 
+		public static long zero() {
+			return 0L;
+		}
+
+		public void checked() throws IOException {
+			throw new IOException("test");
+		}
+
 	}
 
 	public static class MyBean implements MyInterface1 {